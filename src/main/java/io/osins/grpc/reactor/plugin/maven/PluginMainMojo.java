@@ -1,15 +1,31 @@
 package io.osins.grpc.reactor.plugin.maven;
 
 import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.protobuf.DescriptorProtos;
 import io.osins.grpc.reactor.plugin.maven.module.ProtoModule;
 import io.osins.grpc.reactor.plugin.maven.module.ReactiveCodeModule;
+import io.osins.grpc.reactor.plugin.maven.service.BuildMetrics;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorCodeService;
+import io.osins.grpc.reactor.plugin.maven.service.DependencyProtoExtractor;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorRegistry;
+import io.osins.grpc.reactor.plugin.maven.service.GeneratedOutput;
+import io.osins.grpc.reactor.plugin.maven.service.GenerationManifest;
 import io.osins.grpc.reactor.plugin.maven.service.JavaService;
+import io.osins.grpc.reactor.plugin.maven.service.ProcessSupervisor;
 import io.osins.grpc.reactor.plugin.maven.service.ProtoService;
+import io.osins.grpc.reactor.plugin.maven.service.ProtocCompilerService;
+import io.osins.grpc.reactor.plugin.maven.service.ProtocToolchain;
 import io.osins.grpc.reactor.plugin.maven.service.ReactiveCodeService;
+import io.osins.grpc.reactor.plugin.maven.service.SharedDescriptors;
+import io.osins.grpc.reactor.plugin.maven.service.WarmCache;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoFiles;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoPaths;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.maven.artifact.repository.MavenArtifactRepository;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.*;
@@ -18,6 +34,20 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.internal.impl.DefaultRepositorySystem;
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Mojo(
@@ -59,6 +89,52 @@ public class PluginMainMojo extends AbstractMojo {
     @Parameter(property = "utilPath", defaultValue = "/home/richard/codes/matrix/matrix-shared/matrix-shared-grpc/matrix-shared-grpc-base/src/main/java/club/hm/matrix/shared/grpc/base/utils")
     private String utilPath;
 
+    /**
+     * protoc 构件，groupId:artifactId:version 时按当前系统补充 classifier；设为空使用 PATH 上的 protoc
+     */
+    @Parameter(property = "protocArtifact", defaultValue = "com.google.protobuf:protoc:4.33.0")
+    private String protocArtifact;
+
+    /**
+     * 客户端代码生成器：descriptor（直接基于 protoc 输出的描述符）或 spoon（解析 grpc-java 源码）
+     */
+    @Parameter(property = "generator", defaultValue = "descriptor")
+    private String generator;
+
+    /**
+     * 客户端调用方式：observer 的一元方法经 grpc 的 StreamObserver 适配（spoon 生成器使用 Observer）；
+     * call 通过 *Grpc 中的 MethodDescriptor 直接使用 ClientCall，一元调用分配更少的对象，只有 descriptor 生成器支持
+     */
+    @Parameter(property = "clientMode", defaultValue = "observer")
+    private String clientMode;
+
+    @Parameter(property = "minimalClasspath", defaultValue = "true")
+    private boolean minimalClasspath;
+
+    @Parameter(property = "incremental", defaultValue = "true")
+    private boolean incremental;
+
+    /**
+     * 在 mvnd 等常驻进程中跨构建保留描述符与清单，只在增量模式下生效
+     */
+    @Parameter(property = "warmCache", defaultValue = "true")
+    private boolean warmCache;
+
+    @Parameter(property = "protocCache", defaultValue = "true")
+    private boolean protocCache;
+
+    @Parameter(property = "protocCacheDirectory", defaultValue = "${user.home}/.m2/osins-grpc-cache")
+    private String protocCacheDirectory;
+
+    @Parameter(property = "protocCacheHardLinks", defaultValue = "false")
+    private boolean protocCacheHardLinks;
+
+    /**
+     * 需要一并编译其中 .proto 文件的依赖，groupId:artifactId，artifactId 可以是 *
+     */
+    @Parameter(property = "protoDependencies")
+    private List<String> protoDependencies;
+
     @Parameter(defaultValue = "${session}")
     private MavenSession session;
 
@@ -72,6 +148,9 @@ public class PluginMainMojo extends AbstractMojo {
     @SuppressWarnings("deprecation")
     private DefaultRepositorySystem repoSystem;
 
+    @Component
+    private BuildContext buildContext;
+
     @Override
     public void execute() throws MojoExecutionException {
         if (project == null) {
@@ -79,6 +158,13 @@ public class PluginMainMojo extends AbstractMojo {
             return;
         }
 
+        // 生成目录登记为编译源码与资源目录，增量构建跳过生成时同样需要
+        addGeneratedRoots();
+        if (upToDateInBuildContext(outputRoots())) {
+            log.info("No proto changes reported by the build context, skipping generation");
+            return;
+        }
+
         log.info("artifact repositories: {}", project.getRemoteArtifactRepositories());
         log.info("plugin repositories: {}", project.getRemotePluginRepositories());
         log.info("session[{}]: {}", session.getClass().getTypeName(), session);
@@ -86,35 +172,356 @@ public class PluginMainMojo extends AbstractMojo {
         log.info("repoSession[{}]: {}", repoSession.getClass().getTypeName(), repoSession);
         log.info("repoSystem[{}]: {}", repoSystem.getClass().getTypeName(), repoSession);
 
-        var threads = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
-        var protoInjector = Guice.createInjector(
-                new ProtoModule(threads,
-                        project,
-                        session, repoSession, repoSystem, resolve));
-        var reactiveCodeInjector = Guice.createInjector(new ReactiveCodeModule(project, outProtobuf, serviceName, packageName, channelName, outClient, utilPath));
+        var protoInjector = createProtoInjector();
+        var reactiveCodeInjector = createReactiveCodeInjector(protoInjector);
+        var metrics = protoInjector.getInstance(BuildMetrics.class);
 
         log.info("Starting gRPC Spring Bean generation...");
         log.info("utilPath: {}", utilPath);
 
         try {
-            // 解析 Proto 文件
-            var protoService = protoInjector.getInstance(ProtoService.class);
-            var protos = protoService.getFileDescriptorSet(source, outDesc, outProtobuf);
+            if (incremental && warmCache) {
+                generateWarm(protoInjector, reactiveCodeInjector);
+            } else {
+                var previous = incremental ? GenerationManifest.load(manifestFile()) : null;
+                generate(protoInjector, reactiveCodeInjector, previous, null);
+            }
+        } catch (Exception e) {
+            WarmCache.invalidate(project.getBasedir().toPath());
+            log.error("Error generating gRPC Spring Beans", e);
+            throw new MojoExecutionException("Failed to generate gRPC Spring Beans", e);
+        } finally {
+            release(protoInjector);
+            metrics.logSummary();
+            metrics.writeReport(Paths.get(project.getBuild().getDirectory(), "osins-grpc", "build-metrics.json"));
+        }
+    }
+
+    /**
+     * 使用上次构建留在进程中的描述符与清单生成，之后把结果放回 WarmCache
+     */
+    private void generateWarm(Injector protoInjector, Injector reactiveCodeInjector) throws Exception {
+        var basedir = project.getBasedir().toPath();
+        var fingerprint = warmFingerprint();
+        var warm = WarmCache.take(basedir, fingerprint, manifestFile());
 
-            if (protos.isEmpty()) {
-                log.info("No proto files found in: {}", protos);
-                return;
+        var previous = warm != null ? warm.manifest() : GenerationManifest.load(manifestFile());
+        var resident = warm != null ? warm.registry() : new DescriptorRegistry();
+        var current = generate(protoInjector, reactiveCodeInjector, previous, resident);
+        if (current != null)
+            WarmCache.put(basedir, fingerprint, resident, current, manifestFile());
+    }
+
+    /**
+     * 除 generationParameters 外，工具链与类路径相关的参数变化同样使常驻状态失效
+     */
+    private String warmFingerprint() {
+        var parameters = new TreeMap<>(generationParameters());
+        parameters.put("protocArtifact", String.valueOf(protocArtifact));
+        parameters.put("minimalClasspath", String.valueOf(minimalClasspath));
+        parameters.put("protocCache", protocCache + "|" + protocCacheDirectory + "|" + protocCacheHardLinks);
+        return parameters.toString();
+    }
+
+    protected Injector createProtoInjector() {
+        return Guice.createInjector(createProtoModule());
+    }
+
+    protected ProtoModule createProtoModule() {
+        var threads = ProcessSupervisor.concurrency();
+        return new ProtoModule(threads,
+                project,
+                session, repoSession, repoSystem, resolve)
+                .setProtocCacheDirectory(protocCache ? protocCacheDirectory : "")
+                .setProtocCacheHardLinks(protocCacheHardLinks)
+                .setProtocArtifact(protocArtifact == null ? "" : protocArtifact);
+    }
+
+    protected Injector createReactiveCodeInjector(Injector protoInjector) {
+        return Guice.createInjector(new ReactiveCodeModule(project, outProtobuf, serviceName, packageName, channelName, outClient, utilPath)
+                .setResolve(resolve)
+                .setMinimalClasspath(minimalClasspath)
+                .setClientMode(clientMode == null ? "observer" : clientMode)
+                .setExecutor(protoInjector.getInstance(ExecutorService.class))
+                .setGeneratedOutput(protoInjector.getInstance(GeneratedOutput.class))
+                .setBuildMetrics(protoInjector.getInstance(BuildMetrics.class)));
+    }
+
+    /**
+     * Guice 不会调用 @PreDestroy，在这里结束 protoc 进程并释放全部线程，避免在 mvnd 守护进程中累积
+     */
+    protected void release(Injector protoInjector) {
+        protoInjector.getInstance(ProcessSupervisor.class).close();
+        protoInjector.getInstance(ExecutorService.class).shutdownNow();
+    }
+
+    /**
+     * 按清单规划并执行一次生成，返回新的清单；已是最新或没有可生成的文件时返回 previous。
+     * resident 不为 null 时把本次编译结果合并进去并基于它生成，供 watch 在多次生成之间保留描述符。
+     */
+    protected GenerationManifest generate(Injector protoInjector, Injector reactiveCodeInjector, GenerationManifest previous, DescriptorRegistry resident) throws Exception {
+        return generate(protoInjector, reactiveCodeInjector, previous, resident, null);
+    }
+
+    /**
+     * shared 不为 null 时本次编译结果合并进 reactor 共用的描述符，只为本模块的目标文件生成代码
+     */
+    GenerationManifest generate(Injector protoInjector, Injector reactiveCodeInjector, GenerationManifest previous, DescriptorRegistry resident, SharedDescriptors shared) throws Exception {
+        var metrics = protoInjector.getInstance(BuildMetrics.class);
+        var output = protoInjector.getInstance(GeneratedOutput.class);
+        output.reset();
+
+        // 解析 Proto 文件
+        var protoService = protoInjector.getInstance(ProtoService.class);
+        var protoFiles = new ArrayList<Path>();
+        ProtoPaths protoPaths;
+        GenerationManifest current;
+        GenerationManifest.Plan plan;
+        List<Path> targets;
+        try (var ignored = metrics.phase("plan")) {
+            if (protoDependencies == null || protoDependencies.isEmpty() || Files.isDirectory(protoSourceDirectory()))
+                protoFiles.addAll(protoService.findProtoFiles(source));
+            var extractor = protoInjector.getInstance(DependencyProtoExtractor.class);
+            var dependencyProtos = extractor.extract(protoDependencies);
+            protoFiles.addAll(dependencyProtos.files());
+
+            // 插件自带的 options.proto 只在被 import 时参与编译，protoc 为它生成的 Java 类供引用它的文件使用
+            var pluginProtos = extractor.pluginProtos();
+            if (ProtoFiles.imported(protoFiles, ProtoFiles.OPTIONS_PROTO))
+                protoFiles.addAll(pluginProtos.files());
+
+            // 源码目录在前，工程内的文件优先于依赖中的同名文件，插件自带的文件最后
+            var roots = new ArrayList<Path>();
+            roots.add(protoSourceDirectory());
+            roots.addAll(dependencyProtos.roots());
+            roots.addAll(pluginProtos.roots());
+            protoPaths = ProtoPaths.of(roots);
+
+            // 相对 proto_path 同名的文件只保留查找顺序中靠前的一个，与 protoc 一致
+            var names = new HashMap<String, Path>();
+            protoFiles.removeIf(file -> {
+                var first = names.putIfAbsent(protoPaths.name(file), file);
+                if (first != null)
+                    log.warn("Ignoring {}, shadowed by {} on the proto_path", file, first);
+                return first != null;
+            });
+
+            if (protoFiles.isEmpty()) {
+                log.info("No proto files found in: {}", source);
+                return previous;
             }
 
-            var javaService = reactiveCodeInjector.getInstance(JavaService.class);
-            var reactiveCode = reactiveCodeInjector.getInstance(ReactiveCodeService.class);
-            reactiveCode.generateSpringWebfluxConfig(javaService.loadJavaCodes(outProtobuf));
+            String protocVersion;
+            try (var ignoredToolchain = metrics.phase("toolchain")) {
+                protocVersion = protoInjector.getInstance(ProtocToolchain.class).get().protocVersion();
+            }
+            current = GenerationManifest.snapshot(protoFiles, protoPaths, protocVersion, resolve, generationParameters());
+            plan = current.plan(previous);
 
-            log.info("gRPC Spring Bean generation completed successfully!");
+            if (plan.isUpToDate()) {
+                log.info("gRPC sources are up to date, skipping generation");
+                return previous;
+            }
 
-        } catch (Exception e) {
-            log.error("Error generating gRPC Spring Beans", e);
-            throw new MojoExecutionException("Failed to generate gRPC Spring Beans", e);
+            targets = plan.isFull() ? List.copyOf(protoFiles) : protoFiles.stream()
+                    .filter(p -> plan.getAffected().contains(GenerationManifest.key(p)))
+                    .toList();
+            log.info("Generating gRPC sources for {} of {} proto files", targets.size(), protoFiles.size());
+        }
+        metrics.count("protoFiles", protoFiles.size());
+        metrics.count("targets", targets.size());
+
+        DescriptorRegistry compiled;
+        try (var ignored = metrics.phase("protoc")) {
+            compiled = protoService.getDescriptorRegistry(targets, protoPaths, outDesc, outProtobuf);
+        }
+
+        if (compiled.targets().isEmpty()) {
+            log.info("No proto files compiled in: {}", source);
+            return previous;
+        }
+
+        var local = compiled;
+        if (resident != null) {
+            if (plan.isFull())
+                resident.clear();
+            local = resident.replaceAll(compiled);
         }
+
+        var ownGrpcClasses = compiled.targets().stream()
+                .flatMap(f -> ProtoFiles.grpcClassNames(f).stream())
+                .toList();
+        var grpcClasses = plan.isFull() ? List.<String>of() : ownGrpcClasses;
+
+        // 共用的描述符中还有其他模块的服务
+        Predicate<String> grpcClassFilter = plan.isFull() && shared == null ? name -> true : ownGrpcClasses::contains;
+        try (var descriptors = shared != null ? shared.merge(compiled) : SharedDescriptors.local(local)) {
+            var registry = descriptors.registry();
+            try (var ignored = metrics.phase("generate")) {
+                if ("spoon".equalsIgnoreCase(generator)) {
+                    if ("call".equalsIgnoreCase(clientMode))
+                        log.warn("clientMode=call is only supported by the descriptor generator, spoon clients use Observer");
+                    if (plan.isFull() || !grpcClasses.isEmpty()) {
+                        var javaService = reactiveCodeInjector.getInstance(JavaService.class);
+                        var reactiveCode = reactiveCodeInjector.getInstance(ReactiveCodeService.class);
+                        var launcher = javaService.loadJavaCodes(outProtobuf, grpcClasses);
+                        reactiveCode.generateSpringWebfluxConfig(launcher, grpcClassFilter);
+                        // 流式方法引用的 ReactorClientCalls 与 descriptor 生成器共用同一模板
+                        reactiveCodeInjector.getInstance(DescriptorCodeService.class).generateClientCalls();
+                    }
+                } else {
+                    reactiveCodeInjector.getInstance(DescriptorCodeService.class).generate(registry, grpcClassFilter);
+                }
+            }
+
+            // 合并后的描述符资源覆盖全部 proto，与生成器无关
+            try (var ignored = metrics.phase("bundle")) {
+                var fileNames = protoFiles.stream().map(protoPaths::name).toList();
+                reactiveCodeInjector.getInstance(DescriptorCodeService.class).generateBundle(registry, fileNames, generatedResourceRoot());
+            }
+        }
+
+        // 编译失败的文件不记入清单，下次构建会重新尝试，并在 IDE 中标记
+        var compiledNames = compiled.targets().stream().map(DescriptorProtos.FileDescriptorProto::getName).collect(Collectors.toSet());
+        var failures = protoService.failures();
+        var failed = new TreeSet<String>();
+        for (var target : targets) {
+            buildContext.removeMessages(target.toFile());
+            var name = protoPaths.name(target);
+            if (!compiledNames.contains(name)) {
+                failed.add(GenerationManifest.key(target));
+                current.getInputs().remove(GenerationManifest.key(target));
+                addMarkers(target, name, failures.getOrDefault(name, List.of()));
+            }
+        }
+
+        // 只写入内容有变化的文件；删除本次重新生成的 proto 上一次生成、这一次不再生成的文件，编译失败的 proto 保留原有输出
+        try (var ignored = metrics.phase("outputs")) {
+            var keyByName = new HashMap<String, String>();
+            protoFiles.forEach(file -> keyByName.put(protoPaths.name(file), GenerationManifest.key(file)));
+            var owners = new HashMap<String, String>();
+            output.owners().forEach((file, name) -> {
+                if (keyByName.containsKey(name))
+                    owners.put(GenerationManifest.key(file), keyByName.get(name));
+            });
+
+            var outputs = new TreeSet<>(output.produced());
+            if (previous != null) {
+                var regenerated = new TreeSet<>(plan.isFull() ? previous.getInputs().keySet() : plan.getAffected());
+                regenerated.removeAll(failed);
+                var stale = plan.isFull() ? new TreeSet<>(previous.getOutputs().keySet()) : previous.outputsOwnedBy(regenerated);
+                if (plan.isFull())
+                    stale.removeAll(previous.outputsOwnedBy(failed));
+                output.deleteOrphans(stale);
+                var kept = plan.isFull() ? previous.outputsOwnedBy(failed) : previous.getOutputs().keySet();
+                kept.forEach(file -> outputs.add(Path.of(file)));
+            }
+            log.info("Generated files: {} written, {} unchanged", output.written(), output.unchanged());
+
+            current.recordOutputs(outputs, owners, previous);
+            current.save(manifestFile());
+            outputRoots().forEach(root -> buildContext.refresh(root.toFile()));
+        }
+        metrics.count("filesWritten", output.written());
+        metrics.count("filesUnchanged", output.unchanged());
+
+        log.info("gRPC Spring Bean generation completed successfully!");
+        return current;
+    }
+
+    /**
+     * 把 protoc 报告的错误标记到文件的对应位置；错误都在其他文件（例如出错的 import）时标记在文件开头
+     */
+    private void addMarkers(Path target, String name, List<ProtocCompilerService.Diagnostic> diagnostics) {
+        var own = diagnostics.stream().filter(d -> d.file().equals(name)).toList();
+        if (own.isEmpty()) {
+            var message = diagnostics.isEmpty()
+                    ? "protoc failed to compile this file, see the build log"
+                    : diagnostics.stream().map(ProtocCompilerService.Diagnostic::toString).collect(Collectors.joining("\n"));
+            buildContext.addMessage(target.toFile(), 0, 0, message, BuildContext.SEVERITY_ERROR, null);
+            return;
+        }
+        for (var diagnostic : own) {
+            var severity = diagnostic.message().startsWith("warning:") ? BuildContext.SEVERITY_WARNING : BuildContext.SEVERITY_ERROR;
+            buildContext.addMessage(target.toFile(), diagnostic.line(), diagnostic.column(), diagnostic.message(), severity, null);
+        }
+    }
+
+    /**
+     * protoc 生成的 Java 源码与客户端代码目录，与 ProtoServiceImpl / DescriptorCodeServiceImpl 的输出位置一致
+     */
+    protected List<Path> generatedSourceRoots() {
+        var generated = Paths.get(project.getBuild().getDirectory(), "generated-sources", outProtobuf);
+        return List.of(generated.resolve("java"), generated.resolve("grpc-java"), Paths.get(outClient));
+    }
+
+    /**
+     * 合并后的描述符资源所在目录
+     */
+    protected Path generatedResourceRoot() {
+        return Paths.get(project.getBuild().getDirectory(), "generated-resources", "osins-grpc");
+    }
+
+    protected void addGeneratedRoots() {
+        generatedSourceRoots().forEach(root -> project.addCompileSourceRoot(root.toString()));
+
+        var directory = generatedResourceRoot().toString();
+        if (project.getResources().stream().noneMatch(r -> directory.equals(r.getDirectory()))) {
+            var resource = new Resource();
+            resource.setDirectory(directory);
+            project.addResource(resource);
+        }
+    }
+
+    /**
+     * 全部输出目录：生成的源码与资源目录加上 .desc 目录
+     */
+    protected List<Path> outputRoots() {
+        var roots = new ArrayList<>(generatedSourceRoots());
+        roots.add(generatedResourceRoot());
+        roots.add(Paths.get(project.getBuild().getDirectory(), "generated-sources", outDesc));
+        return roots;
+    }
+
+    protected Path protoSourceDirectory() {
+        return Paths.get(project.getBasedir() + source);
+    }
+
+    protected Path manifestFile() {
+        return Paths.get(project.getBuild().getDirectory(), "osins-grpc", "generation-manifest.json");
+    }
+
+    /**
+     * IDE 增量构建中 proto 目录与 proto 依赖都没有变化、输出目录都还在时无需执行；命令行构建总是返回 false
+     */
+    private boolean upToDateInBuildContext(List<Path> outputRoots) {
+        if (!buildContext.isIncremental())
+            return false;
+        if (buildContext.hasDelta(protoSourceDirectory().toFile()))
+            return false;
+        // 依赖 jar 不在工作区内，BuildContext 看不到它们的变化，与上一次解出时的索引比较
+        if (DependencyProtoExtractor.changed(project, protoDependencies))
+            return false;
+        return outputRoots.stream().allMatch(Files::isDirectory);
+    }
+
+    /**
+     * 影响生成结果的 mojo 参数，任何一项变化都需要全量生成
+     */
+    private Map<String, String> generationParameters() {
+        var parameters = new TreeMap<String, String>();
+        parameters.put("serviceName", serviceName);
+        parameters.put("channelName", channelName);
+        parameters.put("packageName", packageName);
+        parameters.put("resolve", resolve);
+        parameters.put("source", source);
+        parameters.put("outDesc", outDesc);
+        parameters.put("outProtobuf", outProtobuf);
+        parameters.put("outClient", outClient);
+        parameters.put("utilPath", String.valueOf(utilPath));
+        parameters.put("generator", generator);
+        parameters.put("clientMode", String.valueOf(clientMode));
+        parameters.put("protoDependencies", String.valueOf(protoDependencies));
+        return parameters;
     }
-}
\ No newline at end of file
+}
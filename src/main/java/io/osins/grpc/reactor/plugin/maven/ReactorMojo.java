@@ -0,0 +1,229 @@
+package io.osins.grpc.reactor.plugin.maven;
+
+import com.google.inject.Guice;
+import io.osins.grpc.reactor.plugin.maven.service.BuildMetrics;
+import io.osins.grpc.reactor.plugin.maven.service.GenerationManifest;
+import io.osins.grpc.reactor.plugin.maven.service.ProcessSupervisor;
+import io.osins.grpc.reactor.plugin.maven.service.SharedDescriptors;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 在一个 JVM 中为整个 reactor 生成代码：收集每个模块中 generate-grpc-spring-beans 执行的配置，
+ * 各模块并行生成，共用线程池、工具链、指标与按相对 proto_path 文件名合并的描述符，公共 import 只链接一次；
+ * 各模块只为自己的目标文件生成代码，protoc 进程按模块管理。模块仍有各自的注入器，只因 Spoon 生成器需要模块自己的类路径；
+ * 输出仍写入各模块自己的目录，清单也按模块保存，之后各模块自己的执行会判断为已是最新。
+ */
+@Slf4j
+@Mojo(
+        name = "generate-reactor",
+        aggregator = true,
+        requiresDependencyResolution = ResolutionScope.COMPILE
+)
+@Setter
+@Getter
+public class ReactorMojo extends PluginMainMojo {
+    private static final String GOAL = "generate-grpc-spring-beans";
+
+    /**
+     * 不从模块配置中读取的字段，由 Maven 按模块或会话注入
+     */
+    private static final Set<String> INJECTED = Set.of("project", "session", "localRepository", "repoSession", "repoSystem", "buildContext");
+
+    @Parameter(defaultValue = "${plugin}", readonly = true)
+    private PluginDescriptor pluginDescriptor;
+
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    private MojoExecution mojoExecution;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        var modules = modules();
+        if (modules.isEmpty()) {
+            log.info("No reactor project runs {}:{}", pluginDescriptor.getPluginLookupKey(), GOAL);
+            return;
+        }
+        log.info("Generating gRPC sources for {} modules: {}", modules.size(),
+                modules.stream().map(m -> m.getProject().getArtifactId()).toList());
+
+        var threads = ProcessSupervisor.concurrency();
+        var metrics = new BuildMetrics();
+        var executor = Executors.newFixedThreadPool(threads);
+        // 模块任务大部分时间在等待共用线程池中的 protoc 与生成任务，单独的线程池避免互相占用
+        var moduleExecutor = Executors.newFixedThreadPool(Math.min(modules.size(), threads));
+        var failures = new ConcurrentSkipListMap<String, Throwable>();
+        var descriptors = new SharedDescriptors();
+
+        try {
+            var futures = modules.stream()
+                    .map(module -> CompletableFuture.runAsync(() -> {
+                        var name = module.getProject().getArtifactId();
+                        // 每个模块使用自己的进程管理，一个模块的致命错误只结束该模块的 protoc 进程
+                        try (var ignored = metrics.invocation("module", name);
+                             var supervisor = new ProcessSupervisor(metrics)) {
+                            generate(module, executor, supervisor, metrics, descriptors);
+                        } catch (Exception e) {
+                            log.error("Error generating gRPC Spring Beans for module {}", name, e);
+                            failures.put(name, e);
+                        }
+                    }, moduleExecutor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(futures).join();
+        } finally {
+            moduleExecutor.shutdownNow();
+            executor.shutdownNow();
+            metrics.count("modules", modules.size());
+            metrics.logSummary();
+            metrics.writeReport(Paths.get(getProject().getBuild().getDirectory(), "osins-grpc", "reactor-metrics.json"));
+        }
+
+        if (!failures.isEmpty())
+            throw new MojoExecutionException("Failed to generate gRPC Spring Beans for modules: " + failures.keySet(),
+                    failures.firstEntry().getValue());
+    }
+
+    private void generate(PluginMainMojo module, ExecutorService executor, ProcessSupervisor supervisor, BuildMetrics metrics,
+                          SharedDescriptors descriptors) throws Exception {
+        var project = module.getProject();
+        module.addGeneratedRoots();
+
+        var protoInjector = Guice.createInjector(module.createProtoModule()
+                .setExecutor(executor)
+                .setProcessSupervisor(supervisor)
+                .setBuildMetrics(metrics));
+        var reactiveCodeInjector = module.createReactiveCodeInjector(protoInjector);
+
+        log.info("Generating gRPC sources for module {}", project.getArtifactId());
+        var previous = module.isIncremental() ? GenerationManifest.load(module.manifestFile()) : null;
+        module.generate(protoInjector, reactiveCodeInjector, previous, null, descriptors);
+    }
+
+    /**
+     * reactor 中执行 generate-grpc-spring-beans 的模块，按构建顺序
+     */
+    private List<PluginMainMojo> modules() throws MojoExecutionException {
+        var modules = new ArrayList<PluginMainMojo>();
+        for (var project : getSession().getProjects()) {
+            var plugin = project.getBuild().getPluginsAsMap().get(pluginDescriptor.getPluginLookupKey());
+            if (plugin == null)
+                continue;
+
+            var configuration = configuration(plugin);
+            if (configuration != null)
+                modules.add(forModule(project, configuration));
+        }
+        return modules;
+    }
+
+    /**
+     * 插件级配置与执行级配置合并，执行级优先；没有执行生成目标时返回 null
+     */
+    private static Xpp3Dom configuration(Plugin plugin) {
+        Xpp3Dom configuration = null;
+        for (var execution : plugin.getExecutions()) {
+            if (!execution.getGoals().contains(GOAL))
+                continue;
+            var dom = execution.getConfiguration() instanceof Xpp3Dom e ? new Xpp3Dom(e) : new Xpp3Dom("configuration");
+            configuration = configuration == null ? dom : Xpp3Dom.mergeXpp3Dom(dom, configuration);
+        }
+        if (configuration != null && plugin.getConfiguration() instanceof Xpp3Dom dom)
+            configuration = Xpp3Dom.mergeXpp3Dom(configuration, new Xpp3Dom(dom));
+        return configuration;
+    }
+
+    /**
+     * 以当前执行的参数为默认值，再应用模块 pom 中的配置；${...} 表达式按模块工程求值，与模块自己执行时一致
+     */
+    PluginMainMojo forModule(MavenProject project, Xpp3Dom configuration) throws MojoExecutionException {
+        var session = getSession().clone();
+        session.setCurrentProject(project);
+        var evaluator = new PluginParameterExpressionEvaluator(session, mojoExecution);
+
+        var mojo = new PluginMainMojo();
+        try {
+            for (var field : PluginMainMojo.class.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()))
+                    continue;
+
+                field.setAccessible(true);
+                field.set(mojo, field.get(this));
+
+                var value = configuration.getChild(field.getName());
+                if (value == null || INJECTED.contains(field.getName()))
+                    continue;
+
+                // 空元素保留默认值
+                var converted = convert(field, value, evaluator);
+                if (converted != null)
+                    field.set(mojo, converted);
+            }
+        } catch (IllegalAccessException | ExpressionEvaluationException | RuntimeException e) {
+            throw new MojoExecutionException("Invalid " + GOAL + " configuration in " + project.getId() + ": " + e.getMessage(), e);
+        }
+
+        mojo.setProject(project);
+        mojo.setSession(session);
+        mojo.setLog(getLog());
+        return mojo;
+    }
+
+    static Object convert(Field field, Xpp3Dom value, ExpressionEvaluator evaluator) throws ExpressionEvaluationException {
+        var type = field.getType();
+        if (type == List.class) {
+            var values = new ArrayList<String>();
+            for (var child : value.getChildren()) {
+                var text = evaluate(child, evaluator);
+                if (text != null)
+                    values.add(text);
+            }
+            return values;
+        }
+
+        var text = evaluate(value, evaluator);
+        if (text == null)
+            return null;
+        if (type == String.class)
+            return text;
+        if (type == boolean.class)
+            return Boolean.parseBoolean(text);
+        if (type == int.class)
+            return Integer.parseInt(text);
+        if (type == long.class)
+            return Long.parseLong(text);
+        throw new IllegalArgumentException("Unsupported parameter type for " + field.getName() + ": " + type.getSimpleName());
+    }
+
+    /**
+     * 元素文本求值后的结果，空元素或求值为空时为 null
+     */
+    private static String evaluate(Xpp3Dom value, ExpressionEvaluator evaluator) throws ExpressionEvaluationException {
+        if (value.getValue() == null || value.getValue().isBlank())
+            return null;
+        var evaluated = evaluator.evaluate(value.getValue().trim());
+        return evaluated == null ? null : evaluated.toString().trim();
+    }
+}
@@ -0,0 +1,138 @@
+package io.osins.grpc.reactor.plugin.maven;
+
+import com.google.inject.Injector;
+import io.osins.grpc.reactor.plugin.maven.service.BuildMetrics;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorRegistry;
+import io.osins.grpc.reactor.plugin.maven.service.GenerationManifest;
+import io.osins.grpc.reactor.plugin.maven.service.ProcessSupervisor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * 常驻运行，proto 变化后只重新生成受影响的服务。
+ * 工具链、注入器、线程池与描述符在多次生成之间保留；每次生成仍按清单计算变更文件及其依赖方，
+ * 清单保存在内存中并在每次生成后写回，之后的普通构建可以直接沿用。Ctrl+C 结束。
+ */
+@Slf4j
+@Mojo(
+        name = "watch",
+        requiresDependencyResolution = ResolutionScope.COMPILE
+)
+@Setter
+@Getter
+public class WatchMojo extends PluginMainMojo {
+
+    /**
+     * 最后一个文件事件之后等待的毫秒数，编辑器保存时常在短时间内产生多个事件
+     */
+    @Parameter(property = "watchDebounceMillis", defaultValue = "150")
+    private long watchDebounceMillis;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (getProject() == null) {
+            log.warn("project is null");
+            return;
+        }
+
+        addGeneratedRoots();
+
+        var protoInjector = createProtoInjector();
+        var reactiveCodeInjector = createReactiveCodeInjector(protoInjector);
+        var metrics = protoInjector.getInstance(BuildMetrics.class);
+        var supervisor = protoInjector.getInstance(ProcessSupervisor.class);
+        var sourceDirectory = protoSourceDirectory();
+
+        try (var watcher = FileSystems.getDefault().newWatchService()) {
+            register(sourceDirectory, watcher);
+
+            var resident = new DescriptorRegistry();
+            var manifest = isIncremental() ? GenerationManifest.load(manifestFile()) : null;
+            manifest = generate(protoInjector, reactiveCodeInjector, manifest, resident);
+
+            log.info("Watching {} for proto changes, press Ctrl+C to stop", sourceDirectory);
+            while (true) {
+                var changed = awaitChanges(watcher);
+                if (changed.isEmpty())
+                    continue;
+
+                log.info("Proto changes: {}", changed.stream().map(sourceDirectory::relativize).toList());
+                var start = System.nanoTime();
+                try {
+                    manifest = regenerate(supervisor, protoInjector, reactiveCodeInjector, manifest, resident);
+                    log.info("Regenerated in {} ms", (System.nanoTime() - start) / 1_000_000);
+                } catch (Exception e) {
+                    // 语法错误等问题修复后下一次保存会重新生成，不结束 watch
+                    log.error("Generation failed, waiting for the next change", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Stopped watching {}", sourceDirectory);
+        } catch (Exception e) {
+            throw new MojoExecutionException("Failed to watch proto sources: " + sourceDirectory, e);
+        } finally {
+            release(protoInjector);
+            metrics.logSummary();
+        }
+    }
+
+    /**
+     * 文件变化后的一次生成；incremental=false 时不沿用上一次的清单，每次都全量生成
+     */
+    GenerationManifest regenerate(ProcessSupervisor supervisor, Injector protoInjector, Injector reactiveCodeInjector,
+                                  GenerationManifest manifest, DescriptorRegistry resident) throws Exception {
+        supervisor.reset();
+        return generate(protoInjector, reactiveCodeInjector, isIncremental() ? manifest : null, resident);
+    }
+
+    /**
+     * 阻塞到第一个事件，再收集直到静默 watchDebounceMillis；新建的目录同样加入监听
+     */
+    Set<Path> awaitChanges(WatchService watcher) throws InterruptedException, IOException {
+        var changed = new TreeSet<Path>();
+        var key = watcher.take();
+        while (key != null) {
+            var directory = (Path) key.watchable();
+            for (var event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    changed.add(directory);
+                    continue;
+                }
+
+                var path = directory.resolve((Path) event.context());
+                if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                    register(path, watcher);
+                    changed.add(path);
+                } else if (path.toString().endsWith(".proto")) {
+                    changed.add(path);
+                }
+            }
+            key.reset();
+            key = watcher.poll(watchDebounceMillis, TimeUnit.MILLISECONDS);
+        }
+        return changed;
+    }
+
+    static void register(Path root, WatchService watcher) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (var directory : paths.filter(Files::isDirectory).toList()) {
+                directory.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package io.osins.grpc.reactor.plugin.maven.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class MethodModel {
+    private String rpcName;
+    private String name;
+    private String methodGetter;
+    private String requestType;
+    private String responseType;
+    /**
+     * 与 Spoon 生成器一致：只有请求类型以 Request 结尾时客户端方法才带参数
+     */
+    private boolean requestParameter;
+    private boolean clientStreaming;
+    private boolean serverStreaming;
+
+    /**
+     * clientMode 为 call 时直接通过 ClientCall 调用，否则一元方法经 ReactorStubs.unary 调用；
+     * methodDescriptor 为 *Grpc 类中的 MethodDescriptor 表达式
+     */
+    private boolean directCall;
+    private String methodDescriptor;
+    /**
+     * 客户端方法不带参数时发送的请求
+     */
+    private String requestDefault;
+
+    /**
+     * 截止时间，由构造方法注入 final 字段，默认值取自方法选项 deadline_ms，可由 Spring 属性 deadlineValue 覆盖，0 表示不设置
+     */
+    private String deadlineField;
+    private String deadlineValue;
+}
@@ -0,0 +1,37 @@
+package io.osins.grpc.reactor.plugin.maven.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 一个 gRPC 服务对应的生成模型，类型名已按各自文件的 import 解析为源码中使用的名称
+ */
+@Data
+@Builder
+public class ServiceModel {
+    private String protoName;
+    /**
+     * 定义服务的 proto 文件，相对 proto_path
+     */
+    private String protoFile;
+    private String grpcClass;
+
+    private String clientPackage;
+    private String clientClassName;
+    private List<String> clientImports;
+    private String clientStubType;
+    private String stubField;
+    /**
+     * clientMode 为 call 时 ReactorClientCalls 在客户端源码中的名称
+     */
+    private String clientCalls;
+    private List<MethodModel> methods;
+
+    private String configPackage;
+    private String configClassName;
+    private List<String> configImports;
+    private String channelParameter;
+    private List<StubBeanModel> stubBeans;
+}
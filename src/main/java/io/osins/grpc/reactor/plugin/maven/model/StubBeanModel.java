@@ -0,0 +1,13 @@
+package io.osins.grpc.reactor.plugin.maven.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class StubBeanModel {
+    private String beanName;
+    private String stubType;
+    private String factoryMethod;
+    private String utilMethod;
+}
@@ -4,12 +4,16 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.google.inject.name.Names;
+import io.osins.grpc.reactor.plugin.maven.service.BuildMetrics;
+import io.osins.grpc.reactor.plugin.maven.service.ProcessSupervisor;
 import io.osins.grpc.reactor.plugin.maven.service.ProtoService;
 import io.osins.grpc.reactor.plugin.maven.service.ProtocCompiler;
 import io.osins.grpc.reactor.plugin.maven.service.impl.ProtoServiceImpl;
 import io.osins.grpc.reactor.plugin.maven.service.impl.ProtocCompilerImpl;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.project.MavenProject;
@@ -21,6 +25,7 @@ import java.util.concurrent.Executors;
 
 @Slf4j
 @Getter
+@Accessors(chain = true)
 @RequiredArgsConstructor
 public class ProtoModule extends AbstractModule {
     private final int threadCount;
@@ -30,6 +35,30 @@ public class ProtoModule extends AbstractModule {
     private final RepositorySystem repositorySystem;
     private final String resolve;
 
+    /**
+     * protoc 输出缓存目录，为空时不使用缓存
+     */
+    @Setter
+    private String protocCacheDirectory = "";
+    @Setter
+    private boolean protocCacheHardLinks;
+
+    /**
+     * protoc 构件坐标，为空时使用 PATH 上的 protoc
+     */
+    @Setter
+    private String protocArtifact = "";
+
+    /**
+     * 多个模块在同一次生成中共用的线程池、进程与指标，未设置时每个注入器各自创建
+     */
+    @Setter
+    private ExecutorService executor;
+    @Setter
+    private ProcessSupervisor processSupervisor;
+    @Setter
+    private BuildMetrics buildMetrics;
+
     @Override
     protected void configure() {
         bind(ProtocCompiler.class).to(ProtocCompilerImpl.class);
@@ -38,17 +67,34 @@ public class ProtoModule extends AbstractModule {
         bind(MavenSession.class).toInstance(session);
         bind(RepositorySystemSession.class).toInstance(repositorySystemSession);
         bind(RepositorySystem.class).toInstance(repositorySystem);
+        if (processSupervisor != null)
+            bind(ProcessSupervisor.class).toInstance(processSupervisor);
+        if (buildMetrics != null)
+            bind(BuildMetrics.class).toInstance(buildMetrics);
 
         bind(String.class)
                 .annotatedWith(Names.named("resolve"))
                 .toInstance(resolve);
 
         log.info("ReactiveCodeModule configure, resolve: {}", resolve);
+
+        bind(String.class)
+                .annotatedWith(Names.named("protocCacheDirectory"))
+                .toInstance(protocCacheDirectory);
+        bindConstant()
+                .annotatedWith(Names.named("protocCacheHardLinks"))
+                .to(protocCacheHardLinks);
+
+        log.info("ProtoModule configure, protoc cache: {}", protocCacheDirectory);
+
+        bind(String.class)
+                .annotatedWith(Names.named("protocArtifact"))
+                .toInstance(protocArtifact);
     }
 
     @Provides
     @Singleton
     ExecutorService provideExecutorService() {
-        return Executors.newFixedThreadPool(threadCount);
+        return executor != null ? executor : Executors.newFixedThreadPool(threadCount);
     }
 }
\ No newline at end of file
@@ -1,18 +1,29 @@
 package io.osins.grpc.reactor.plugin.maven.module;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.google.inject.name.Names;
+import io.osins.grpc.reactor.plugin.maven.service.BuildMetrics;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorCodeService;
+import io.osins.grpc.reactor.plugin.maven.service.GeneratedOutput;
 import io.osins.grpc.reactor.plugin.maven.service.JavaService;
 import io.osins.grpc.reactor.plugin.maven.service.ReactiveCodeService;
+import io.osins.grpc.reactor.plugin.maven.service.impl.DescriptorCodeServiceImpl;
 import io.osins.grpc.reactor.plugin.maven.service.impl.JavaServiceImpl;
 import io.osins.grpc.reactor.plugin.maven.service.impl.ReactiveCodeServiceImpl;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.maven.project.MavenProject;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
 @Slf4j
 @Getter
+@Accessors(chain = true)
 @RequiredArgsConstructor
 public class ReactiveCodeModule extends AbstractModule {
     private final MavenProject project;
@@ -23,11 +34,49 @@ public class ReactiveCodeModule extends AbstractModule {
     private final String outClient;
     private final String utilPath;
 
+    /**
+     * protoc-gen-grpc-java 坐标，描述符生成器据此判断插件生成了哪些 stub
+     */
+    @Setter
+    private String resolve = "";
+
+    /**
+     * Spoon 只使用 *Grpc 源码实际引用的依赖作为 source classpath
+     */
+    @Setter
+    private boolean minimalClasspath;
+
+    /**
+     * 按服务并行生成与打印使用的线程池，通常与 ProtoModule 共用；未设置时使用公共池
+     */
+    @Setter
+    private ExecutorService executor;
+
+    /**
+     * 与 ProtoModule 共用的输出记录，未设置时每个注入器各自创建
+     */
+    @Setter
+    private GeneratedOutput generatedOutput;
+
+    @Setter
+    private BuildMetrics buildMetrics;
+
+    /**
+     * 客户端调用方式：observer 经 StreamObserver 适配，call 直接使用 ClientCall
+     */
+    @Setter
+    private String clientMode = "observer";
+
     @Override
     protected void configure() {
         bind(JavaService.class).to(JavaServiceImpl.class);
         bind(ReactiveCodeService.class).to(ReactiveCodeServiceImpl.class);
+        bind(DescriptorCodeService.class).to(DescriptorCodeServiceImpl.class);
         bind(MavenProject.class).toInstance(project);
+        if (generatedOutput != null)
+            bind(GeneratedOutput.class).toInstance(generatedOutput);
+        if (buildMetrics != null)
+            bind(BuildMetrics.class).toInstance(buildMetrics);
 
         bind(String.class)
                 .annotatedWith(Names.named("outputDirectory"))
@@ -64,5 +113,22 @@ public class ReactiveCodeModule extends AbstractModule {
                 .toInstance(utilPath);
 
         log.info("ReactiveCodeModule configure, util path: {}", utilPath);
+
+        bind(String.class)
+                .annotatedWith(Names.named("resolve"))
+                .toInstance(resolve);
+
+        bindConstant()
+                .annotatedWith(Names.named("minimalClasspath"))
+                .to(minimalClasspath);
+
+        bind(String.class)
+                .annotatedWith(Names.named("clientMode"))
+                .toInstance(clientMode);
+    }
+
+    @Provides
+    ExecutorService provideExecutorService() {
+        return executor != null ? executor : ForkJoinPool.commonPool();
     }
 }
\ No newline at end of file
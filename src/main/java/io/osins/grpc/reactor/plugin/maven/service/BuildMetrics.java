@@ -0,0 +1,180 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+/**
+ * 构建各阶段耗时与堆内存峰值。
+ * 同名阶段可以多次、并发计时，累计次数、总耗时与最长一次；protoc 等外部调用另外逐次记录。
+ * 结束时输出汇总表，并把 JSON 报告写到 target 目录，便于在 CI 中跟踪性能变化。
+ */
+@Slf4j
+@Singleton
+public class BuildMetrics {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final int INVOCATION_LIMIT = 200;
+
+    /**
+     * 计时区间，配合 try-with-resources 使用
+     */
+    public interface Span extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class Stat {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        synchronized void add(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+    }
+
+    private record Invocation(String phase, String detail, long millis) {
+    }
+
+    private final long startNanos = System.nanoTime();
+    private final Instant startTime = Instant.now();
+    private final Map<String, Stat> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Queue<Invocation> invocations = new ConcurrentLinkedQueue<>();
+    private final Map<String, Long> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 创建时各堆内存池的峰值；JVM 全局的峰值不能重置，否则会清掉同一进程中其他构建的统计
+     */
+    private final Map<String, Long> baselinePeaks = new HashMap<>();
+    /**
+     * 计时区间结束时采样到的各内存池用量最大值
+     */
+    private final Map<String, Long> sampledPeaks = new ConcurrentHashMap<>();
+
+    public BuildMetrics() {
+        heapPools().forEach(pool -> baselinePeaks.put(pool.getName(), pool.getPeakUsage().getUsed()));
+        sample();
+    }
+
+    public Span phase(String name) {
+        var stat = phases.computeIfAbsent(name, k -> new Stat());
+        var start = System.nanoTime();
+        return () -> {
+            stat.add(System.nanoTime() - start);
+            sample();
+        };
+    }
+
+    /**
+     * 逐次记录的外部调用，例如一次 protoc 进程
+     */
+    public Span invocation(String name, String detail) {
+        var stat = phases.computeIfAbsent(name, k -> new Stat());
+        var start = System.nanoTime();
+        return () -> {
+            var nanos = System.nanoTime() - start;
+            stat.add(nanos);
+            invocations.add(new Invocation(name, detail, nanos / 1_000_000));
+            sample();
+        };
+    }
+
+    public void count(String name, long value) {
+        counters.merge(name, value, Long::sum);
+    }
+
+    /**
+     * 各堆内存池峰值之和：峰值超过基线说明由本次构建达到，否则使用本次构建采样到的最大值
+     */
+    public long heapPeakBytes() {
+        sample();
+        return heapPools().mapToLong(this::peak).sum();
+    }
+
+    public void logSummary() {
+        var snapshot = snapshot();
+        log.info("---------------- gRPC generation timings ----------------");
+        log.info(String.format("%-28s %8s %10s %10s", "phase", "count", "total ms", "max ms"));
+        snapshot.forEach((name, stat) -> log.info(String.format("%-28s %8d %10d %10d",
+                name, stat.count, stat.totalNanos / 1_000_000, stat.maxNanos / 1_000_000)));
+        log.info(String.format("%-28s %8s %10d", "total", "", elapsedMillis()));
+        log.info(String.format("%-28s %8s %10d MB", "heap peak", "", heapPeakBytes() / (1024 * 1024)));
+    }
+
+    public void writeReport(Path file) {
+        var report = new LinkedHashMap<String, Object>();
+        report.put("started", startTime.toString());
+        report.put("totalMillis", elapsedMillis());
+
+        var phaseList = new ArrayList<Map<String, Object>>();
+        snapshot().forEach((name, stat) -> {
+            var phase = new LinkedHashMap<String, Object>();
+            phase.put("name", name);
+            phase.put("count", stat.count);
+            phase.put("totalMillis", stat.totalNanos / 1_000_000);
+            phase.put("maxMillis", stat.maxNanos / 1_000_000);
+            phaseList.add(phase);
+        });
+        report.put("phases", phaseList);
+
+        // 只保留最慢的调用，避免大工程的报告过大
+        report.put("slowestInvocations", invocations.stream()
+                .sorted(Comparator.comparingLong(Invocation::millis).reversed())
+                .limit(INVOCATION_LIMIT)
+                .toList());
+        report.put("counters", new TreeMap<>(counters));
+
+        var heap = new LinkedHashMap<String, Object>();
+        heap.put("peakBytes", heapPeakBytes());
+        heap.put("maxBytes", Runtime.getRuntime().maxMemory());
+        heapPools().forEach(pool -> heap.put(pool.getName(), peak(pool)));
+        report.put("heap", heap);
+
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, GSON.toJson(report));
+            log.info("Build metrics written to {}", file);
+        } catch (IOException e) {
+            log.warn("Failed to write build metrics {}: {}", file, e.getMessage());
+        }
+    }
+
+    private long peak(MemoryPoolMXBean pool) {
+        var peak = pool.getPeakUsage().getUsed();
+        return peak > baselinePeaks.getOrDefault(pool.getName(), 0L) ? peak : sampledPeaks.getOrDefault(pool.getName(), 0L);
+    }
+
+    private void sample() {
+        heapPools().forEach(pool -> sampledPeaks.merge(pool.getName(), pool.getUsage().getUsed(), Math::max));
+    }
+
+    private static Stream<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid());
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private Map<String, Stat> snapshot() {
+        synchronized (phases) {
+            return new LinkedHashMap<>(phases);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.artifact.Artifact;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 计算 *Grpc 源码实际引用到的依赖，只把这些 jar 交给 Spoon/JDT 建索引。
+ * 生成代码使用全限定名引用外部类型，扫描源码文本即可得到引用的包。
+ */
+@Slf4j
+public final class ClasspathMinimizer {
+    private static final Pattern QUALIFIED = Pattern.compile("\\b((?:[a-z_][a-z0-9_]*\\.)+)[A-Z]");
+    private static final Set<String> REQUIRED = Set.of("grpc-stub", "grpc-api", "protobuf-java");
+
+    /**
+     * jar 包含的包名，按路径、大小和修改时间缓存
+     */
+    private static final Map<String, Set<String>> PACKAGES = new ConcurrentHashMap<>();
+
+    private ClasspathMinimizer() {
+    }
+
+    public static Set<String> referencedPackages(List<Path> sources) throws IOException {
+        var packages = new HashSet<String>();
+        for (var source : sources) {
+            var matcher = QUALIFIED.matcher(Files.readString(source));
+            while (matcher.find()) {
+                var pkg = matcher.group(1);
+                packages.add(pkg.substring(0, pkg.length() - 1));
+            }
+        }
+        return packages;
+    }
+
+    /**
+     * 保留 grpc-stub、grpc-api、protobuf-java 以及包含被引用包的依赖
+     */
+    public static List<String> minimize(Collection<Artifact> artifacts, Set<String> referencedPackages) {
+        return artifacts.stream()
+                .filter(a -> a.getFile() != null && a.getFile().exists())
+                .filter(a -> REQUIRED.contains(a.getArtifactId()) || !Collections.disjoint(packagesOf(a.getFile()), referencedPackages))
+                .map(a -> a.getFile().getAbsolutePath())
+                .distinct()
+                .toList();
+    }
+
+    static Set<String> packagesOf(File file) {
+        var key = file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified();
+        return PACKAGES.computeIfAbsent(key, k -> scan(file));
+    }
+
+    private static Set<String> scan(File file) {
+        var packages = new HashSet<String>();
+        try {
+            if (file.isDirectory()) {
+                var root = file.toPath();
+                try (Stream<Path> paths = Files.walk(root)) {
+                    paths.filter(p -> p.toString().endsWith(".class"))
+                            .map(p -> root.relativize(p.getParent() == null ? root : p.getParent()).toString())
+                            .forEach(dir -> packages.add(dir.replace(File.separatorChar, '.')));
+                }
+            } else {
+                // 只读取 zip 中央目录，不解压内容
+                try (var zip = new ZipFile(file)) {
+                    zip.stream()
+                            .map(ZipEntry::getName)
+                            .filter(n -> n.endsWith(".class") && n.lastIndexOf('/') > 0)
+                            .forEach(n -> packages.add(n.substring(0, n.lastIndexOf('/')).replace('/', '.')));
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Cannot index {}: {}", file, e.getMessage());
+        }
+        return packages;
+    }
+}
@@ -0,0 +1,280 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import com.google.common.base.Strings;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoFiles;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.ZipFile;
+
+/**
+ * 从依赖 jar 中取出 .proto 文件参与编译，不需要先用 maven-dependency-plugin 解包。
+ * 只读取 zip 中央目录和 .proto 条目；解出的文件按 jar 的 SHA-1 存放，内容不可变，多个模块共用。
+ * 工程内的索引记录每个 jar 的大小、修改时间与校验和，jar 未变化时不再打开它。
+ */
+@Slf4j
+@Singleton
+public class DependencyProtoExtractor {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final int FORMAT = 1;
+
+    @Data
+    static class Index {
+        private int format = FORMAT;
+        private Map<String, JarState> jars = new TreeMap<>();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class JarState {
+        private long size;
+        private long lastModified;
+        private String sha1;
+        private List<String> protos;
+    }
+
+    /**
+     * 解出的 .proto 文件，以及给 protoc 的 proto_path（每个 jar 一个解出目录）
+     */
+    public record Protos(List<Path> roots, List<Path> files) {
+    }
+
+    private final MavenProject project;
+    private final Path cacheRoot;
+    private final BuildMetrics metrics;
+
+    @Inject
+    public DependencyProtoExtractor(MavenProject project, @Named("protocCacheDirectory") String cacheDirectory, BuildMetrics metrics) {
+        this.project = project;
+        this.cacheRoot = Strings.isNullOrEmpty(cacheDirectory)
+                ? Paths.get(project.getBuild().getDirectory(), "osins-grpc", "dependency-protos")
+                : Paths.get(cacheDirectory, "protos");
+        this.metrics = metrics;
+    }
+
+    /**
+     * 取出匹配 patterns 的依赖中的全部 .proto（google/protobuf 下的文件除外），返回解出后的路径。
+     * 文件在解出目录中保留 jar 内的路径，import 相对解出目录解析。
+     * pattern 为 groupId:artifactId，artifactId 可以是 *
+     */
+    public Protos extract(Collection<String> patterns) throws IOException {
+        if (patterns == null || patterns.isEmpty())
+            return new Protos(List.of(), List.of());
+
+        try (var ignored = metrics.phase("dependencyProtos")) {
+            var indexFile = indexFile(project);
+            var previous = load(indexFile);
+            var current = new Index();
+            var roots = new ArrayList<Path>();
+            var result = new ArrayList<Path>();
+
+            for (var artifact : project.getArtifacts()) {
+                if (!protoJar(artifact, patterns))
+                    continue;
+
+                var jar = artifact.getFile();
+                var entry = previous.getJars().get(jar.getAbsolutePath());
+                if (entry == null || entry.getSize() != jar.length() || entry.getLastModified() != jar.lastModified()
+                        || !extracted(entry)) {
+                    entry = extract(jar);
+                } else {
+                    log.debug("Dependency protos unchanged: {}", jar.getName());
+                }
+                current.getJars().put(jar.getAbsolutePath(), entry);
+
+                var directory = cacheRoot.resolve(entry.getSha1());
+                if (!roots.contains(directory))
+                    roots.add(directory);
+                entry.getProtos().forEach(name -> result.add(directory.resolve(name)));
+            }
+
+            save(indexFile, current);
+            log.info("Found {} proto files in {} dependency jars", result.size(), current.getJars().size());
+            return new Protos(roots, result);
+        }
+    }
+
+    /**
+     * 插件自带的 proto（ProtoFiles.OPTIONS_PROTO），按内容摘要解出到一个只读目录，作为最后一个 proto_path
+     */
+    public Protos pluginProtos() throws IOException {
+        byte[] content;
+        try (var in = DependencyProtoExtractor.class.getClassLoader().getResourceAsStream("proto/" + ProtoFiles.OPTIONS_PROTO)) {
+            if (in == null)
+                throw new IOException("Missing plugin resource proto/" + ProtoFiles.OPTIONS_PROTO);
+            content = in.readAllBytes();
+        }
+
+        var directory = cacheRoot.resolve("plugin-" + ProtoFiles.sha256(content).substring(0, 16));
+        if (!Files.isDirectory(directory)) {
+            Files.createDirectories(cacheRoot);
+            var staging = Files.createTempDirectory(cacheRoot, directory.getFileName() + "-");
+            try {
+                var target = staging.resolve(ProtoFiles.OPTIONS_PROTO);
+                Files.createDirectories(target.getParent());
+                Files.write(target, content);
+                publish(staging, directory);
+            } finally {
+                FileUtils.deleteQuietly(staging.toFile());
+            }
+        }
+        return new Protos(List.of(directory), List.of(directory.resolve(ProtoFiles.OPTIONS_PROTO)));
+    }
+
+    /**
+     * 匹配的依赖 jar 与上一次解出时的索引不一致：增减了 jar，或 jar 的大小、修改时间变化。不打开 jar
+     */
+    public static boolean changed(MavenProject project, Collection<String> patterns) {
+        if (patterns == null || patterns.isEmpty())
+            return false;
+
+        var previous = load(indexFile(project)).getJars();
+        var current = new HashSet<String>();
+        for (var artifact : project.getArtifacts()) {
+            if (!protoJar(artifact, patterns))
+                continue;
+
+            var jar = artifact.getFile();
+            var entry = previous.get(jar.getAbsolutePath());
+            if (entry == null || entry.getSize() != jar.length() || entry.getLastModified() != jar.lastModified())
+                return true;
+            current.add(jar.getAbsolutePath());
+        }
+        return !current.equals(previous.keySet());
+    }
+
+    private static Path indexFile(MavenProject project) {
+        return Paths.get(project.getBuild().getDirectory(), "osins-grpc", "dependency-protos.json");
+    }
+
+    private static boolean protoJar(Artifact artifact, Collection<String> patterns) {
+        var jar = artifact.getFile();
+        return jar != null && jar.isFile() && jar.getName().endsWith(".jar") && matches(artifact, patterns);
+    }
+
+    static boolean matches(Artifact artifact, Collection<String> patterns) {
+        for (var pattern : patterns) {
+            var parts = pattern.trim().split(":");
+            if (parts.length == 2 && parts[0].equals(artifact.getGroupId())
+                    && (parts[1].equals("*") || parts[1].equals(artifact.getArtifactId())))
+                return true;
+        }
+        return false;
+    }
+
+    private boolean extracted(JarState entry) {
+        return entry.getSha1() != null && entry.getProtos() != null && Files.isDirectory(cacheRoot.resolve(entry.getSha1()));
+    }
+
+    private JarState extract(File jar) throws IOException {
+        var sha1 = checksum(jar);
+        var directory = cacheRoot.resolve(sha1);
+        var protos = new ArrayList<String>();
+
+        try (var zip = new ZipFile(jar)) {
+            var entries = zip.stream()
+                    .filter(e -> !e.isDirectory() && e.getName().endsWith(".proto") && !e.getName().startsWith("google/protobuf/"))
+                    .toList();
+            entries.forEach(e -> protos.add(e.getName()));
+
+            // 其他模块已经解出过同一个 jar
+            if (Files.isDirectory(directory))
+                return new JarState(jar.length(), jar.lastModified(), sha1, protos);
+
+            Files.createDirectories(cacheRoot);
+            var staging = Files.createTempDirectory(cacheRoot, sha1 + "-");
+            try {
+                for (var entry : entries) {
+                    var target = staging.resolve(entry.getName()).normalize();
+                    if (!target.startsWith(staging))
+                        throw new IOException("Illegal proto entry in " + jar + ": " + entry.getName());
+
+                    Files.createDirectories(target.getParent());
+                    try (var in = zip.getInputStream(entry)) {
+                        Files.copy(in, target);
+                    }
+                }
+                publish(staging, directory);
+            } finally {
+                FileUtils.deleteQuietly(staging.toFile());
+            }
+        }
+
+        log.info("Extracted {} proto files from {}", protos.size(), jar.getName());
+        return new JarState(jar.length(), jar.lastModified(), sha1, protos);
+    }
+
+    /**
+     * 整个目录原子地出现；并发构建抢先完成时保留已有目录
+     */
+    static void publish(Path staging, Path directory) throws IOException {
+        try {
+            Files.move(staging, directory, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            log.debug("Dependency protos already extracted: {}", directory);
+        } catch (AtomicMoveNotSupportedException e) {
+            if (!Files.isDirectory(directory))
+                Files.move(staging, directory);
+        } catch (IOException e) {
+            // 目标目录非空时部分平台抛出 DirectoryNotEmptyException
+            if (!Files.isDirectory(directory))
+                throw e;
+        }
+    }
+
+    /**
+     * 优先使用本地仓库中 jar 旁的 .sha1 文件，避免读取整个 jar
+     */
+    private static String checksum(File jar) throws IOException {
+        var sidecar = new File(jar.getPath() + ".sha1");
+        if (sidecar.isFile()) {
+            var content = Files.readString(sidecar.toPath(), StandardCharsets.UTF_8).trim();
+            var value = content.isEmpty() ? "" : content.split("\\s+")[0].toLowerCase(Locale.ROOT);
+            if (value.matches("[0-9a-f]{40}"))
+                return value;
+        }
+        return ProtoFiles.digest(jar.toPath(), "SHA-1");
+    }
+
+    private static Index load(Path file) {
+        if (!Files.isRegularFile(file))
+            return new Index();
+        try {
+            var index = GSON.fromJson(Files.readString(file), Index.class);
+            return index != null && index.getFormat() == FORMAT && index.getJars() != null ? index : new Index();
+        } catch (Exception e) {
+            log.debug("Ignoring dependency proto index {}: {}", file, e.getMessage());
+            return new Index();
+        }
+    }
+
+    private static void save(Path file, Index index) {
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, GSON.toJson(index));
+        } catch (IOException e) {
+            log.warn("Failed to save dependency proto index {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/**
+ * 直接基于 protoc 输出的描述符生成 *Client 与 *Config，不解析 protoc 生成的 Java 源码
+ */
+public interface DescriptorCodeService {
+    void generate(DescriptorRegistry registry, Predicate<String> grpcClassFilter) throws IOException;
+
+    /**
+     * 生成客户端使用的 ReactorClientCalls 与配置类使用的 ReactorStubs。
+     * 流式方法与 clientMode=call 的一元方法通过 ReactorClientCalls 直接调用 ClientCall，stub Bean 由 ReactorStubs 缓存
+     */
+    void generateClientCalls() throws IOException;
+
+    /**
+     * 把 fileNames 及其 import 闭包合并成一个描述符资源写入 resourceDirectory，并生成读取它的 GrpcDescriptors 类。
+     * 本次没有编译的文件沿用上一次资源中的版本
+     */
+    void generateBundle(DescriptorRegistry registry, Collection<String> fileNames, Path resourceDirectory) throws IOException;
+}
@@ -0,0 +1,284 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Descriptors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一次构建得到的全部 proto 描述符，每个文件只保存一份。
+ * 多个 protoc 批次各自带有 import 闭包，合并时按相对 proto_path 的文件名（descriptor 中的 name）去重；
+ * 服务、方法、消息按全名建立索引，
+ * FileDescriptor 在第一次需要时才链接。合并只在单线程中进行（reactor 中由 SharedDescriptors 加锁），查找与链接可以并发。
+ */
+@Slf4j
+public final class DescriptorRegistry {
+    public record ServiceEntry(DescriptorProtos.FileDescriptorProto file, DescriptorProtos.ServiceDescriptorProto service, String fullName) {
+    }
+
+    public record MethodEntry(ServiceEntry service, DescriptorProtos.MethodDescriptorProto method, String fullName) {
+    }
+
+    public record MessageEntry(DescriptorProtos.FileDescriptorProto file, DescriptorProtos.DescriptorProto message, String fullName) {
+    }
+
+    private final Map<String, DescriptorProtos.FileDescriptorProto> files = new LinkedHashMap<>();
+    private final Set<String> targets = new LinkedHashSet<>();
+    private final Map<String, ServiceEntry> services = new HashMap<>();
+    private final Map<String, MethodEntry> methods = new HashMap<>();
+    private final Map<String, MessageEntry> messages = new HashMap<>();
+    private final Map<String, Descriptors.FileDescriptor> linked = new ConcurrentHashMap<>();
+
+    /**
+     * set 中全部文件都作为目标
+     */
+    public static DescriptorRegistry of(DescriptorProtos.FileDescriptorSet set) {
+        var registry = new DescriptorRegistry();
+        set.getFileList().forEach(file -> registry.add(file, true));
+        return registry;
+    }
+
+    public static DescriptorRegistry of(DescriptorProtos.FileDescriptorSet set, Collection<String> targets) {
+        var names = Set.copyOf(targets);
+        var registry = new DescriptorRegistry();
+        set.getFileList().forEach(file -> registry.add(file, names.contains(file.getName())));
+        return registry;
+    }
+
+    /**
+     * 加入一个文件；同名文件已存在时沿用已有的实例，target 标记可以叠加。
+     * 同名但内容不同说明两个 proto_path 下有同名文件，与 protoc 一样只保留先出现的一份
+     */
+    public DescriptorRegistry add(DescriptorProtos.FileDescriptorProto file, boolean target) {
+        var existing = files.putIfAbsent(file.getName(), file);
+        if (existing == null)
+            index(file);
+        else if (existing != file && !existing.equals(file))
+            log.warn("Conflicting descriptors for {}, keeping the first one", file.getName());
+        if (target)
+            targets.add(file.getName());
+        return this;
+    }
+
+    public DescriptorRegistry addAll(DescriptorRegistry other) {
+        other.files.values().forEach(file -> add(file, other.targets.contains(file.getName())));
+        return this;
+    }
+
+    /**
+     * 合并重新编译的结果：同名文件以 other 为准。内容相同的文件保留已有实例与链接结果；
+     * 有文件内容变化时已链接的描述符全部失效，因为依赖它们的文件需要基于新版本重新链接
+     */
+    public DescriptorRegistry replaceAll(DescriptorRegistry other) {
+        var changed = false;
+        for (var file : other.files.values()) {
+            var old = files.get(file.getName());
+            if (old == null || !old.equals(file)) {
+                files.put(file.getName(), file);
+                if (old != null) {
+                    unindex(old);
+                    changed = true;
+                }
+                index(file);
+            }
+            if (other.targets.contains(file.getName()))
+                targets.add(file.getName());
+        }
+        if (changed)
+            linked.clear();
+        return this;
+    }
+
+    public void clear() {
+        files.clear();
+        targets.clear();
+        services.clear();
+        methods.clear();
+        messages.clear();
+        linked.clear();
+    }
+
+    public boolean isEmpty() {
+        return files.isEmpty();
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    public Collection<DescriptorProtos.FileDescriptorProto> files() {
+        return Collections.unmodifiableCollection(files.values());
+    }
+
+    /**
+     * 本次编译的目标文件，不含只作为 import 出现的文件
+     */
+    public List<DescriptorProtos.FileDescriptorProto> targets() {
+        return targets.stream().map(files::get).toList();
+    }
+
+    public Optional<DescriptorProtos.FileDescriptorProto> file(String name) {
+        return Optional.ofNullable(files.get(name));
+    }
+
+    public Collection<ServiceEntry> services() {
+        return Collections.unmodifiableCollection(services.values());
+    }
+
+    /**
+     * 服务全名，例如 "pkg.UserService"，可带前导点
+     */
+    public Optional<ServiceEntry> service(String fullName) {
+        return Optional.ofNullable(services.get(strip(fullName)));
+    }
+
+    /**
+     * 方法全名，"pkg.UserService.FindById" 或 gRPC 形式的 "pkg.UserService/FindById"
+     */
+    public Optional<MethodEntry> method(String fullName) {
+        return Optional.ofNullable(methods.get(strip(fullName).replace('/', '.')));
+    }
+
+    /**
+     * 消息全名（含嵌套消息），例如 descriptor 中的 ".pkg.Outer.Inner"
+     */
+    public Optional<MessageEntry> message(String fullName) {
+        return Optional.ofNullable(messages.get(strip(fullName)));
+    }
+
+    /**
+     * 文件及其 import 闭包，依赖优先
+     */
+    public DescriptorProtos.FileDescriptorSet closure(String fileName) {
+        var closure = new LinkedHashMap<String, DescriptorProtos.FileDescriptorProto>();
+        collect(fileName, closure);
+        return DescriptorProtos.FileDescriptorSet.newBuilder().addAllFile(closure.values()).build();
+    }
+
+    /**
+     * 多个文件的 import 闭包合并，依赖优先；不存在的文件名忽略
+     */
+    public DescriptorProtos.FileDescriptorSet closure(Collection<String> fileNames) {
+        var closure = new LinkedHashMap<String, DescriptorProtos.FileDescriptorProto>();
+        fileNames.forEach(name -> collect(name, closure));
+        return DescriptorProtos.FileDescriptorSet.newBuilder().addAllFile(closure.values()).build();
+    }
+
+    /**
+     * 全部文件，依赖优先；replaceAll 之后插入顺序不再保证这一点，因此按 import 重新排序
+     */
+    public DescriptorProtos.FileDescriptorSet toFileDescriptorSet() {
+        var ordered = new LinkedHashMap<String, DescriptorProtos.FileDescriptorProto>();
+        files.keySet().forEach(name -> collect(name, ordered));
+        return DescriptorProtos.FileDescriptorSet.newBuilder().addAllFile(ordered.values()).build();
+    }
+
+    /**
+     * 链接后的 FileDescriptor，依赖按需递归链接，结果缓存
+     */
+    public Descriptors.FileDescriptor link(String fileName) {
+        var descriptor = linked.get(fileName);
+        if (descriptor != null)
+            return descriptor;
+
+        synchronized (linked) {
+            return link(fileName, new HashSet<>());
+        }
+    }
+
+    public Descriptors.ServiceDescriptor serviceDescriptor(String fullName) {
+        var entry = service(fullName).orElseThrow(() -> new IllegalArgumentException("Unknown service: " + fullName));
+        return link(entry.file().getName()).findServiceByName(entry.service().getName());
+    }
+
+    public Descriptors.MethodDescriptor methodDescriptor(String fullName) {
+        var entry = method(fullName).orElseThrow(() -> new IllegalArgumentException("Unknown method: " + fullName));
+        return serviceDescriptor(entry.service().fullName()).findMethodByName(entry.method().getName());
+    }
+
+    public Descriptors.Descriptor messageDescriptor(String fullName) {
+        var entry = message(fullName).orElseThrow(() -> new IllegalArgumentException("Unknown message: " + fullName));
+        var file = link(entry.file().getName());
+        var relative = entry.file().getPackage().isEmpty()
+                ? entry.fullName()
+                : entry.fullName().substring(entry.file().getPackage().length() + 1);
+
+        var parts = relative.split("\\.");
+        var descriptor = file.findMessageTypeByName(parts[0]);
+        for (var i = 1; i < parts.length; i++)
+            descriptor = descriptor.findNestedTypeByName(parts[i]);
+        return descriptor;
+    }
+
+    private Descriptors.FileDescriptor link(String fileName, Set<String> visiting) {
+        var descriptor = linked.get(fileName);
+        if (descriptor != null)
+            return descriptor;
+
+        var proto = files.get(fileName);
+        if (proto == null)
+            throw new IllegalArgumentException("Unknown proto file: " + fileName);
+        if (!visiting.add(fileName))
+            throw new IllegalStateException("Import cycle detected at " + fileName);
+
+        var dependencies = new Descriptors.FileDescriptor[proto.getDependencyCount()];
+        for (var i = 0; i < dependencies.length; i++)
+            dependencies[i] = link(proto.getDependency(i), visiting);
+
+        try {
+            descriptor = Descriptors.FileDescriptor.buildFrom(proto, dependencies);
+        } catch (Descriptors.DescriptorValidationException e) {
+            throw new IllegalStateException("Invalid descriptor " + fileName + ": " + e.getMessage(), e);
+        }
+        linked.put(fileName, descriptor);
+        return descriptor;
+    }
+
+    private void collect(String fileName, Map<String, DescriptorProtos.FileDescriptorProto> closure) {
+        var file = files.get(fileName);
+        if (file == null || closure.containsKey(fileName))
+            return;
+
+        file.getDependencyList().forEach(dep -> collect(dep, closure));
+        closure.put(fileName, file);
+    }
+
+    private void index(DescriptorProtos.FileDescriptorProto file) {
+        var prefix = file.getPackage().isEmpty() ? "" : file.getPackage() + ".";
+        for (var service : file.getServiceList()) {
+            var entry = new ServiceEntry(file, service, prefix + service.getName());
+            services.put(entry.fullName(), entry);
+            for (var method : service.getMethodList()) {
+                var methodEntry = new MethodEntry(entry, method, entry.fullName() + "." + method.getName());
+                methods.put(methodEntry.fullName(), methodEntry);
+            }
+        }
+        file.getMessageTypeList().forEach(message -> index(file, message, prefix));
+    }
+
+    private void unindex(DescriptorProtos.FileDescriptorProto file) {
+        var prefix = file.getPackage().isEmpty() ? "" : file.getPackage() + ".";
+        for (var service : file.getServiceList()) {
+            services.remove(prefix + service.getName());
+            service.getMethodList().forEach(method -> methods.remove(prefix + service.getName() + "." + method.getName()));
+        }
+        file.getMessageTypeList().forEach(message -> unindex(message, prefix));
+    }
+
+    private void unindex(DescriptorProtos.DescriptorProto message, String prefix) {
+        messages.remove(prefix + message.getName());
+        message.getNestedTypeList().forEach(nested -> unindex(nested, prefix + message.getName() + "."));
+    }
+
+    private void index(DescriptorProtos.FileDescriptorProto file, DescriptorProtos.DescriptorProto message, String prefix) {
+        var entry = new MessageEntry(file, message, prefix + message.getName());
+        messages.put(entry.fullName(), entry);
+        message.getNestedTypeList().forEach(nested -> index(file, nested, entry.fullName() + "."));
+    }
+
+    private static String strip(String name) {
+        return name.startsWith(".") ? name.substring(1) : name;
+    }
+}
@@ -0,0 +1,156 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import com.google.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 生成文件的统一出口：内容先写入暂存文件，与现有文件逐字节比较，只替换有变化的文件，
+ * 未变化的文件保留原有时间戳，编译器与 IDE 的增量编译不会重新编译它们。
+ * 同时记录本次构建产出的全部文件及生成它们的 proto 文件，用于删除已移除服务遗留的文件。
+ */
+@Slf4j
+@Singleton
+public class GeneratedOutput {
+    private final Set<Path> produced = ConcurrentHashMap.newKeySet();
+    /**
+     * 生成文件 -> 生成它的 proto 文件（相对 proto_path 的名称）；多个 proto 共用的文件没有记录
+     */
+    private final Map<Path, String> owners = new ConcurrentHashMap<>();
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+
+    public void write(Path file, String content) throws IOException {
+        write(file, content, null);
+    }
+
+    public void write(Path file, String content, String owner) throws IOException {
+        write(file, content.getBytes(StandardCharsets.UTF_8), owner);
+    }
+
+    public void write(Path file, byte[] content) throws IOException {
+        write(file, content, null);
+    }
+
+    public void write(Path file, byte[] content, String owner) throws IOException {
+        Files.createDirectories(file.getParent());
+        // 暂存文件与目标在同一目录，保证可以原子替换
+        var staged = Files.createTempFile(file.getParent(), "." + file.getFileName(), ".tmp");
+        try {
+            Files.write(staged, content);
+            replace(staged, file, owner);
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    /**
+     * 将暂存目录中的文件同步到目标目录，暂存文件会被移动或删除
+     */
+    public void sync(Path staging, Path target) throws IOException {
+        sync(staging, target, relative -> null);
+    }
+
+    /**
+     * 同上，owner 按相对路径（/ 分隔）给出生成该文件的 proto，未知时返回 null
+     */
+    public void sync(Path staging, Path target, Function<String, String> owner) throws IOException {
+        if (!Files.isDirectory(staging))
+            return;
+
+        try (Stream<Path> paths = Files.walk(staging)) {
+            for (var file : paths.filter(Files::isRegularFile).toList()) {
+                var relative = staging.relativize(file).toString().replace(File.separatorChar, '/');
+                replace(file, target.resolve(relative), owner.apply(relative));
+            }
+        }
+    }
+
+    private void replace(Path staged, Path target, String owner) throws IOException {
+        produced.add(normalize(target));
+        if (owner != null)
+            owners.put(normalize(target), owner);
+
+        if (Files.isRegularFile(target) && Files.size(target) == Files.size(staged) && Files.mismatch(staged, target) == -1) {
+            Files.delete(staged);
+            unchanged.incrementAndGet();
+            return;
+        }
+
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        written.incrementAndGet();
+    }
+
+    /**
+     * 删除上一次生成、本次没有生成的文件，只处理清单中记录过的生成文件。
+     * 全量生成时传入上一次的全部输出，增量生成时只传入受影响的 proto 上一次生成的文件
+     */
+    public int deleteOrphans(Collection<String> previousOutputs) throws IOException {
+        var deleted = 0;
+        for (var output : previousOutputs) {
+            var file = normalize(Path.of(output));
+            if (!produced.contains(file) && Files.deleteIfExists(file)) {
+                log.info("Deleted orphaned generated file: {}", file);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 开始新一轮生成，watch 在多次生成之间复用同一个实例
+     */
+    public void reset() {
+        produced.clear();
+        owners.clear();
+        written.set(0);
+        unchanged.set(0);
+    }
+
+    public List<Path> produced() {
+        return produced.stream().sorted().toList();
+    }
+
+    public Map<Path, String> owners() {
+        return Map.copyOf(owners);
+    }
+
+    /**
+     * 本次生成的文件对应的 proto，未知时为 null
+     */
+    public String owner(Path file) {
+        return owners.get(normalize(file));
+    }
+
+    public int written() {
+        return written.get();
+    }
+
+    public int unchanged() {
+        return unchanged.get();
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
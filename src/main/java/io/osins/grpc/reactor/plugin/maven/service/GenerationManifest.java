@@ -0,0 +1,217 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoFiles;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoPaths;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * 增量生成状态清单，保存在 target 目录下。
+ * 记录 proto 输入、import 关系、工具版本、mojo 参数以及生成结果的内容哈希。
+ */
+@Slf4j
+@Data
+public class GenerationManifest {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final int FORMAT = 2;
+
+    private int format = FORMAT;
+    private String protocVersion;
+    private String grpcPlugin;
+    private Map<String, String> parameters = new TreeMap<>();
+    private Map<String, String> inputs = new TreeMap<>();
+    private Map<String, List<String>> imports = new TreeMap<>();
+    private Map<String, FileState> outputs = new TreeMap<>();
+    /**
+     * 生成文件 -> 生成它的 proto 输入，增量生成时据此删除受影响的 proto 不再生成的文件
+     */
+    private Map<String, String> owners = new TreeMap<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FileState {
+        private long size;
+        private long lastModified;
+        private String sha256;
+    }
+
+    /**
+     * 与上一次清单比较的结果
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Plan {
+        private final boolean full;
+        private final Set<String> affected;
+
+        public boolean isUpToDate() {
+            return !full && affected.isEmpty();
+        }
+    }
+
+    public static GenerationManifest load(Path file) {
+        if (!Files.isRegularFile(file))
+            return null;
+
+        try {
+            var manifest = GSON.fromJson(Files.readString(file), GenerationManifest.class);
+            return manifest != null && manifest.getFormat() == FORMAT ? manifest : null;
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable generation manifest {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    public void save(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, GSON.toJson(this));
+    }
+
+    /**
+     * 对当前 proto 输入建立快照，import 只记录能在输入集合中找到的文件
+     */
+    public static GenerationManifest snapshot(List<Path> protoFiles, String protocVersion, String grpcPlugin, Map<String, String> parameters) throws IOException {
+        return snapshot(protoFiles, ProtoPaths.none(), protocVersion, grpcPlugin, parameters);
+    }
+
+    /**
+     * import 按 protoPaths 解析，与编译时一致
+     */
+    public static GenerationManifest snapshot(List<Path> protoFiles, ProtoPaths protoPaths, String protocVersion, String grpcPlugin, Map<String, String> parameters) throws IOException {
+        var manifest = new GenerationManifest();
+        manifest.setProtocVersion(protocVersion);
+        manifest.setGrpcPlugin(grpcPlugin);
+        manifest.getParameters().putAll(parameters);
+
+        var known = new HashSet<String>();
+        protoFiles.forEach(p -> known.add(key(p)));
+
+        for (var protoFile : protoFiles) {
+            var content = Files.readAllBytes(protoFile);
+            manifest.getInputs().put(key(protoFile), ProtoFiles.sha256(content));
+
+            var root = protoPaths.root(protoFile);
+            var resolved = ProtoFiles.imports(new String(content, StandardCharsets.UTF_8)).stream()
+                    .flatMap(i -> protoPaths.resolve(i, root).stream())
+                    .map(GenerationManifest::key)
+                    .filter(known::contains)
+                    .sorted()
+                    .toList();
+            manifest.getImports().put(key(protoFile), resolved);
+        }
+        return manifest;
+    }
+
+    /**
+     * 计算需要重新生成的 proto 文件：变更文件及所有（传递）依赖它们的文件
+     */
+    public Plan plan(GenerationManifest previous) {
+        if (previous == null) {
+            return new Plan(true, inputs.keySet());
+        }
+        if (!Objects.equals(protocVersion, previous.getProtocVersion())
+                || !Objects.equals(grpcPlugin, previous.getGrpcPlugin())
+                || !Objects.equals(parameters, previous.getParameters())) {
+            log.info("Toolchain or plugin parameters changed, regenerating everything");
+            return new Plan(true, inputs.keySet());
+        }
+        if (!previous.getInputs().keySet().stream().allMatch(inputs::containsKey)) {
+            log.info("Proto files were removed, regenerating everything");
+            return new Plan(true, inputs.keySet());
+        }
+        if (!previous.outputsIntact()) {
+            log.info("Generated sources were modified or deleted, regenerating everything");
+            return new Plan(true, inputs.keySet());
+        }
+
+        var dependents = new HashMap<String, Set<String>>();
+        imports.forEach((file, deps) -> deps.forEach(d -> dependents.computeIfAbsent(d, k -> new TreeSet<>()).add(file)));
+
+        var affected = new TreeSet<String>();
+        var queue = new ArrayDeque<String>();
+        inputs.forEach((file, hash) -> {
+            if (!hash.equals(previous.getInputs().get(file)))
+                queue.add(file);
+        });
+        while (!queue.isEmpty()) {
+            var file = queue.poll();
+            if (affected.add(file))
+                queue.addAll(dependents.getOrDefault(file, Set.of()));
+        }
+        return new Plan(false, affected);
+    }
+
+    /**
+     * 记录生成文件的哈希；大小和修改时间未变的文件沿用上一次的哈希。
+     * fileOwners 为本次生成文件所属的 proto 输入（均为 key），本次没有重新生成的文件沿用上一次的归属
+     */
+    public void recordOutputs(Collection<Path> files, Map<String, String> fileOwners, GenerationManifest previous) throws IOException {
+        var known = previous == null ? Map.<String, FileState>of() : previous.getOutputs();
+        var knownOwners = previous == null ? Map.<String, String>of() : previous.getOwners();
+        outputs.clear();
+        owners.clear();
+
+        for (var file : files) {
+            if (!Files.isRegularFile(file))
+                continue;
+
+            var size = Files.size(file);
+            var lastModified = Files.getLastModifiedTime(file).toMillis();
+            var old = known.get(key(file));
+            var hash = old != null && old.getSize() == size && old.getLastModified() == lastModified
+                    ? old.getSha256()
+                    : ProtoFiles.sha256(file);
+            outputs.put(key(file), new FileState(size, lastModified, hash));
+
+            var owner = fileOwners.getOrDefault(key(file), knownOwners.get(key(file)));
+            if (owner != null)
+                owners.put(key(file), owner);
+        }
+    }
+
+    /**
+     * 上一次由 inputs 中的 proto 生成的文件
+     */
+    public Set<String> outputsOwnedBy(Collection<String> inputs) {
+        var owned = new TreeSet<String>();
+        owners.forEach((file, owner) -> {
+            if (inputs.contains(owner))
+                owned.add(file);
+        });
+        return owned;
+    }
+
+    public boolean outputsIntact() {
+        for (var entry : outputs.entrySet()) {
+            var file = Path.of(entry.getKey());
+            var state = entry.getValue();
+            try {
+                if (!Files.isRegularFile(file))
+                    return false;
+                if (Files.size(file) == state.getSize() && Files.getLastModifiedTime(file).toMillis() == state.getLastModified())
+                    continue;
+                if (!ProtoFiles.sha256(file).equals(state.getSha256()))
+                    return false;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String key(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+}
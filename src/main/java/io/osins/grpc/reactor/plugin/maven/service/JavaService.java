@@ -3,7 +3,13 @@ package io.osins.grpc.reactor.plugin.maven.service;
 import spoon.Launcher;
 
 import java.io.IOException;
+import java.util.Collection;
 
 public interface JavaService {
     Launcher loadJavaCodes(String source) throws IOException;
+
+    /**
+     * 只把指定的 *Grpc 类加入模型；集合为空时加载全部生成代码
+     */
+    Launcher loadJavaCodes(String source, Collection<String> grpcClassNames) throws IOException;
 }
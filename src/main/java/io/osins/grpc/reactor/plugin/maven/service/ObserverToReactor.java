@@ -8,9 +8,15 @@ import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import spoon.reflect.code.CtFieldRead;
+import spoon.reflect.code.CtInvocation;
 import spoon.reflect.declaration.*;
 import spoon.reflect.factory.Factory;
+import spoon.reflect.reference.CtFieldReference;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.filter.TypeFilter;
 
 import java.util.*;
 
@@ -60,34 +66,136 @@ public class ObserverToReactor {
         // 3️⃣ 遍历 Stub 方法
         stubClass.getMethods().forEach(method -> {
             log.info("method, {}, {}", method.getSimpleName(), method.getType());
-            if (!method.getType().getSimpleName().equals("void"))
+            // 客户端流与双向流的 stub 方法返回请求的 StreamObserver
+            var requestStream = method.getType().getQualifiedName().equals(StreamObserver.class.getName());
+            if (!requestStream && !method.getType().getSimpleName().equals("void"))
                 return;
 
             method.getParameters().forEach(p -> {
                 log.info("method param, {}, {}", p.getSimpleName(), p.getType());
             });
 
-            log.info("client method: \n{}", lambda(field, method));
+            var clientMethod = requestStream ? requestStream(field, method)
+                    : methodType(method, "SERVER_STREAMING") ? flux(field, method) : lambda(field, method);
+            log.info("client method: \n{}", clientMethod);
 
-            clientClass.addMethod(lambda(field, method));
+            clientClass.addMethod(clientMethod);
         });
 
         return this;
     }
 
-    public CtMethod<?> lambda(CtField<?> field, CtMethod<?> stubMethod) {
-        // 1️⃣ 创建客户端方法签名
+    /**
+     * 按 *Grpc 类中对应的 getXxxMethod 判断方法类型；异步 stub 中一元与服务端流、客户端流与双向流的方法签名分别相同
+     */
+    private boolean methodType(CtMethod<?> stubMethod, String type) {
+        return methodType(stubMethod).map(type::equals).orElse(false);
+    }
+
+    /**
+     * getXxxMethod 中 MethodDescriptor.Builder.setType(...) 的参数，即 MethodType 枚举常量名
+     */
+    private Optional<String> methodType(CtMethod<?> stubMethod) {
+        var getter = grpcClass.getMethod(methodGetterName(stubMethod));
+        if (getter == null)
+            return Optional.empty();
+
+        return getter.getElements(new TypeFilter<CtInvocation<?>>(CtInvocation.class)).stream()
+                .filter(invocation -> invocation.getExecutable().getSimpleName().equals("setType") && invocation.getArguments().size() == 1)
+                .map(invocation -> invocation.getArguments().getFirst())
+                .filter(argument -> argument instanceof CtFieldRead<?>)
+                .map(argument -> ((CtFieldRead<?>) argument).getVariable())
+                .filter(constant -> constant.getDeclaringType() != null && constant.getDeclaringType().getSimpleName().equals("MethodType"))
+                .map(CtFieldReference::getSimpleName)
+                .findFirst();
+    }
+
+    /**
+     * stub 方法名去掉关键字后缀 _ 后首字母大写，与 protoc-gen-grpc-java 的命名一致
+     */
+    private static String methodGetterName(CtMethod<?> stubMethod) {
+        var name = stubMethod.getSimpleName();
+        if (name.endsWith("_"))
+            name = name.substring(0, name.length() - 1);
+        return "get" + Strings.firstToUpperCase(name) + "Method";
+    }
+
+    /**
+     * 服务端流生成 Flux，通过 ReactorClientCalls 直接调用 ClientCall，下游需求传递给 gRPC 流控
+     */
+    public CtMethod<?> flux(CtField<?> field, CtMethod<?> stubMethod) {
         var clientMethod = factory.Core().createMethod();
         clientMethod.setSimpleName(stubMethod.getSimpleName());
         clientMethod.addModifier(ModifierKind.PUBLIC);
 
-        // 返回类型 Mono<StubMethodResponse>
-        var responseType = stubMethod.getParameters().stream()
+        var responseFluxType = factory.Type().createReference(Flux.class);
+        responseFluxType.addActualTypeArgument(responseType(stubMethod));
+        clientMethod.setType(responseFluxType);
+
+        var requestType = stubMethod.getParameters().getFirst().getType();
+        String request;
+        if (requestType.getSimpleName().endsWith("Request")) {
+            var param = factory.Core().createParameter();
+            param.setSimpleName(stubMethod.getParameters().getFirst().getSimpleName());
+            param.setType(requestType);
+            clientMethod.addParameter(param);
+            request = param.getSimpleName();
+        } else {
+            request = requestType.getQualifiedName().replace('$', '.') + ".getDefaultInstance()";
+        }
+
+        var statement = factory.Code().createCodeSnippetStatement("return " + packageName + ".ReactorClientCalls.serverStreaming(this." + field.getSimpleName()
+                + ", " + grpcClass.getQualifiedName() + "." + methodGetterName(stubMethod) + "(), " + request + ")");
+        clientMethod.setBody(factory.Code().createCtBlock(statement));
+
+        return clientMethod;
+    }
+
+    /**
+     * 客户端流生成 Mono，双向流生成 Flux，参数为请求的 Flux；请求按 ClientCall.isReady() 逐条发送
+     */
+    public CtMethod<?> requestStream(CtField<?> field, CtMethod<?> stubMethod) {
+        var bidi = methodType(stubMethod, "BIDI_STREAMING");
+
+        var clientMethod = factory.Core().createMethod();
+        clientMethod.setSimpleName(stubMethod.getSimpleName());
+        clientMethod.addModifier(ModifierKind.PUBLIC);
+
+        var returnType = factory.Type().createReference(bidi ? Flux.class : Mono.class);
+        returnType.addActualTypeArgument(responseType(stubMethod));
+        clientMethod.setType(returnType);
+
+        var requestFluxType = factory.Type().createReference(Flux.class);
+        requestFluxType.addActualTypeArgument(stubMethod.getType().getActualTypeArguments().getFirst());
+        var param = factory.Core().createParameter();
+        param.setSimpleName("requests");
+        param.setType(requestFluxType);
+        clientMethod.addParameter(param);
+
+        var statement = factory.Code().createCodeSnippetStatement("return " + packageName + ".ReactorClientCalls." + (bidi ? "bidiStreaming" : "clientStreaming")
+                + "(this." + field.getSimpleName() + ", " + grpcClass.getQualifiedName() + "." + methodGetterName(stubMethod) + "(), requests)");
+        clientMethod.setBody(factory.Code().createCtBlock(statement));
+
+        return clientMethod;
+    }
+
+    private CtTypeReference<?> responseType(CtMethod<?> stubMethod) {
+        return stubMethod.getParameters().stream()
                 .filter(p -> p.getType().isSubtypeOf(factory.Type().get(StreamObserver.class).getReference()))
                 .map(CtTypedElement::getType)
                 .map(t -> t.getActualTypeArguments().getFirst())
                 .findFirst()
                 .orElseThrow();
+    }
+
+    public CtMethod<?> lambda(CtField<?> field, CtMethod<?> stubMethod) {
+        // 1️⃣ 创建客户端方法签名
+        var clientMethod = factory.Core().createMethod();
+        clientMethod.setSimpleName(stubMethod.getSimpleName());
+        clientMethod.addModifier(ModifierKind.PUBLIC);
+
+        // 返回类型 Mono<StubMethodResponse>
+        var responseType = responseType(stubMethod);
 
         var responseMonoType = factory.Type().createReference(Mono.class);
         responseMonoType.addActualTypeArgument(responseType);
@@ -0,0 +1,184 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.sun.management.OperatingSystemMXBean;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * 外部进程（protoc）的统一管理：在虚拟线程上读取输出并只保留尾部，
+ * 第一次致命错误或 Maven 中断时结束全部运行中的进程，mojo 结束时释放所有线程。
+ */
+@Slf4j
+@Singleton
+public class ProcessSupervisor implements AutoCloseable {
+    /**
+     * 每个 protoc 进程预估占用的内存，用于按可用内存限制并发
+     */
+    private static final long MEMORY_PER_PROCESS = 256L * 1024 * 1024;
+    private static final int OUTPUT_LIMIT = 64 * 1024;
+
+    public record Result(int exitCode, String stdout, String stderr) {
+    }
+
+    private final ExecutorService streams = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("protoc-io-", 0).factory());
+    private final Set<Process> running = ConcurrentHashMap.newKeySet();
+    private final Thread shutdownHook = new Thread(() -> cancelAll("JVM shutdown"), "protoc-supervisor-shutdown");
+    private final BuildMetrics metrics;
+    private volatile String cancelled;
+
+    public ProcessSupervisor() {
+        this(new BuildMetrics());
+    }
+
+    @Inject
+    public ProcessSupervisor(BuildMetrics metrics) {
+        this.metrics = metrics;
+        try {
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            log.debug("JVM is shutting down, no shutdown hook registered");
+        }
+    }
+
+    /**
+     * 按 CPU 数与 JVM 之外可用的物理内存计算并发数，至少为 1
+     */
+    public static int concurrency() {
+        var cpus = Runtime.getRuntime().availableProcessors();
+        var byMemory = Long.MAX_VALUE;
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof OperatingSystemMXBean os) {
+            byMemory = os.getFreeMemorySize() / MEMORY_PER_PROCESS;
+        }
+        return (int) Math.max(1, Math.min(Math.max(1, cpus - 1), byMemory));
+    }
+
+    public Result run(List<String> command, Path directory, Duration timeout) throws IOException, InterruptedException, TimeoutException {
+        checkCancelled();
+
+        var detail = directory != null ? directory.toString() : String.join(" ", command);
+        try (var ignored = metrics.invocation("protoc.process", detail)) {
+            return supervise(command, directory, timeout);
+        }
+    }
+
+    private Result supervise(List<String> command, Path directory, Duration timeout) throws IOException, InterruptedException, TimeoutException {
+        var process = new ProcessBuilder(command)
+                .directory(directory == null ? null : directory.toFile())
+                .start();
+        running.add(process);
+        try {
+            // 进程启动与登记之间可能已被取消
+            if (cancelled != null)
+                destroy(process);
+
+            var stdout = streams.submit(() -> drain(process.getInputStream(), false));
+            var stderr = streams.submit(() -> drain(process.getErrorStream(), true));
+
+            boolean finished;
+            try {
+                finished = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                cancelAll("Interrupted");
+                throw e;
+            }
+
+            if (!finished) {
+                destroy(process);
+                throw new TimeoutException("Process timed out after " + timeout + ": " + command.get(0));
+            }
+            checkCancelled();
+
+            return new Result(process.exitValue(), output(stdout), output(stderr));
+        } finally {
+            running.remove(process);
+        }
+    }
+
+    /**
+     * 结束全部运行中的进程，之后的 run 调用直接失败
+     */
+    public void cancelAll(String reason) {
+        if (cancelled == null)
+            cancelled = reason;
+
+        if (!running.isEmpty())
+            log.warn("Cancelling {} running protoc processes: {}", running.size(), reason);
+        running.forEach(ProcessSupervisor::destroy);
+    }
+
+    /**
+     * 取消之后重新允许启动进程，供 watch 在一次失败的生成之后继续使用
+     */
+    public void reset() {
+        cancelled = null;
+    }
+
+    public boolean isCancelled() {
+        return cancelled != null;
+    }
+
+    @Override
+    public void close() {
+        cancelAll("Build finished");
+        streams.shutdownNow();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            log.debug("JVM is shutting down, shutdown hook left in place");
+        }
+    }
+
+    private void checkCancelled() {
+        if (cancelled != null)
+            throw new CancellationException("protoc cancelled: " + cancelled);
+    }
+
+    private static void destroy(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private static String output(Future<String> future) throws InterruptedException {
+        try {
+            return future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            return "";
+        }
+    }
+
+    /**
+     * 逐行写日志，只保留最后 OUTPUT_LIMIT 个字符用于错误信息
+     */
+    private static String drain(InputStream in, boolean isError) {
+        var tail = new StringBuilder();
+        try (var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (isError) {
+                    log.error("[protoc] {}", line);
+                } else {
+                    log.info("[protoc] {}", line);
+                }
+                tail.append(line).append('\n');
+                if (tail.length() > OUTPUT_LIMIT)
+                    tail.delete(0, tail.length() - OUTPUT_LIMIT);
+            }
+        } catch (IOException e) {
+            log.debug("Process output closed: {}", e.getMessage());
+        }
+        return tail.toString();
+    }
+}
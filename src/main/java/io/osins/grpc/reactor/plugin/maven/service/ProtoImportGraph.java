@@ -0,0 +1,332 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoFiles;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoPaths;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * proto 文件的 import 依赖图。
+ * import 按编译时的 proto_path 解析（源码目录与依赖 jar 的解出目录），google/protobuf 等树外文件不计入。
+ * 用于检测循环依赖、计算拓扑层次与关键路径，并把待编译文件打包成可并行的 protoc 任务。
+ */
+@Slf4j
+public final class ProtoImportGraph {
+    /**
+     * 一次 protoc 调用：同一 proto_path 下的一组目标文件，cost 为预估的解析与生成量
+     */
+    public record Job(Path protoDir, List<Path> files, long cost) {
+    }
+
+    private final Set<Path> targets;
+    private final ProtoPaths protoPaths;
+    private final Map<Path, List<Path>> imports = new TreeMap<>();
+    private final Map<Path, Long> sizes = new HashMap<>();
+
+    private ProtoImportGraph(Collection<Path> targets, ProtoPaths protoPaths) {
+        this.targets = targets.stream().map(ProtoImportGraph::normalize).collect(Collectors.toCollection(TreeSet::new));
+        this.protoPaths = protoPaths;
+    }
+
+    /**
+     * 从目标文件出发读取 import，树内被 import 的文件即使不是目标也加入图中
+     */
+    public static ProtoImportGraph build(Collection<Path> protoFiles) throws IOException {
+        return build(protoFiles, ProtoPaths.none());
+    }
+
+    public static ProtoImportGraph build(Collection<Path> protoFiles, ProtoPaths protoPaths) throws IOException {
+        var graph = new ProtoImportGraph(protoFiles, protoPaths);
+        var queue = new ArrayDeque<>(graph.targets);
+        while (!queue.isEmpty()) {
+            var file = queue.poll();
+            if (graph.imports.containsKey(file))
+                continue;
+
+            var deps = new ArrayList<Path>();
+            var root = protoPaths.root(file);
+            for (var name : ProtoFiles.imports(file)) {
+                var dep = protoPaths.resolve(name, root);
+                if (dep.isPresent()) {
+                    deps.add(dep.get());
+                    queue.add(dep.get());
+                }
+            }
+            graph.imports.put(file, deps);
+            graph.sizes.put(file, Math.max(1, Files.size(file)));
+        }
+        return graph;
+    }
+
+    public List<Path> imports(Path file) {
+        return imports.getOrDefault(normalize(file), List.of());
+    }
+
+    /**
+     * 循环依赖（强连通分量中多于一个文件，或文件 import 自身）
+     */
+    public List<List<Path>> cycles() {
+        return components().stream()
+                .filter(c -> c.size() > 1 || imports.get(c.get(0)).contains(c.get(0)))
+                .toList();
+    }
+
+    /**
+     * 拓扑层次：第 0 层不依赖其他树内文件，第 n 层只依赖更低层；循环中的文件归入同一层
+     */
+    public List<List<Path>> waves() {
+        var levels = levels();
+        var waves = new TreeMap<Integer, List<Path>>();
+        levels.forEach((file, level) -> waves.computeIfAbsent(level, k -> new ArrayList<>()).add(file));
+        waves.values().forEach(Collections::sort);
+        return List.copyOf(waves.values());
+    }
+
+    /**
+     * 按文件大小加权的最长依赖链，从最底层的被依赖文件开始
+     */
+    public List<Path> criticalPath() {
+        var best = new HashMap<Path, Long>();
+        var next = new HashMap<Path, Path>();
+        var order = new ArrayList<Path>();
+        levels().entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .forEach(e -> order.add(e.getKey()));
+
+        for (var file : order) {
+            var cost = sizes.get(file);
+            Path via = null;
+            for (var dep : imports.get(file)) {
+                var depCost = best.getOrDefault(dep, 0L);
+                if (!dep.equals(file) && depCost + sizes.get(file) > cost) {
+                    cost = depCost + sizes.get(file);
+                    via = dep;
+                }
+            }
+            best.put(file, cost);
+            if (via != null)
+                next.put(file, via);
+        }
+
+        var path = new ArrayList<Path>();
+        var end = best.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse(null);
+        var visited = new HashSet<Path>();
+        for (var file = end; file != null && visited.add(file); file = next.get(file)) {
+            path.add(file);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * 把目标文件打包成 protoc 任务。
+     * 同一 proto_path 下互不相连的子图各自成为独立单元；超过平均负载的子图按目标文件切片，
+     * 每片只生成自己的目标，被依赖的文件只在一个切片里生成。最后按预估开销从大到小排列，
+     * 让最长的任务最先开始。
+     */
+    public List<Job> jobs(int slots) {
+        var total = cost(targets);
+        var budget = Math.max(1, total / Math.max(1, slots));
+
+        var jobs = new ArrayList<Job>();
+        var byDir = targets.stream().collect(Collectors.groupingBy(protoPaths::root, TreeMap::new, Collectors.toList()));
+        byDir.forEach((dir, files) -> {
+            var units = new ArrayList<List<Path>>();
+            for (var component : connected(files)) {
+                var cost = cost(component);
+                var slices = (int) Math.min(component.size(), Math.max(1, (cost + budget - 1) / budget));
+                units.addAll(slices == 1 ? List.of(component) : pack(List.of(component), slices, true));
+            }
+
+            // 小的独立子图合并成接近平均负载的任务，减少进程启动次数
+            var dirCost = units.stream().mapToLong(this::cost).sum();
+            var bins = (int) Math.min(units.size(), Math.max(1, (dirCost + budget - 1) / budget));
+            for (var bin : pack(units, bins, false)) {
+                Collections.sort(bin);
+                jobs.add(new Job(dir, bin, cost(bin)));
+            }
+        });
+
+        jobs.sort(Comparator.comparingLong(Job::cost).reversed().thenComparing(j -> j.files().get(0)));
+        return jobs;
+    }
+
+    /**
+     * 记录打包结果；分层、关键路径与循环只用于排查，需要 Tarjan 遍历全图，只在 debug 日志开启时计算
+     */
+    public void report(List<Job> jobs, int slots) {
+        log.info("Packed {} target files into {} protoc jobs for {} threads", targets.size(), jobs.size(), slots);
+        if (!log.isDebugEnabled())
+            return;
+
+        var waves = waves();
+        var critical = criticalPath();
+        log.debug("Proto import graph: {} files, {} waves, widest wave {} files", imports.size(), waves.size(),
+                waves.stream().mapToInt(List::size).max().orElse(0));
+        for (var i = 0; i < waves.size(); i++) {
+            log.debug("Wave {}: {}", i, waves.get(i).stream().map(Path::getFileName).toList());
+        }
+        log.debug("Critical path ({} bytes): {}", critical.stream().mapToLong(sizes::get).sum(),
+                critical.stream().map(Path::getFileName).map(Path::toString).collect(Collectors.joining(" -> ")));
+        cycles().forEach(cycle -> log.debug("Import cycle: {}", cycle.stream().map(Path::getFileName).toList()));
+    }
+
+    /**
+     * 把若干单元（或单个单元中的文件）按 LPT 分配到 bins 个分组，每次放入当前最轻的分组
+     */
+    private List<List<Path>> pack(List<List<Path>> units, int bins, boolean splitFiles) {
+        var items = splitFiles
+                ? units.get(0).stream().map(List::of).toList()
+                : units;
+        var sorted = items.stream()
+                .sorted(Comparator.comparingLong((List<Path> u) -> splitFiles ? sizes.get(u.get(0)) : cost(u)).reversed())
+                .toList();
+
+        var groups = new ArrayList<List<Path>>();
+        var loads = new long[bins];
+        for (var i = 0; i < bins; i++)
+            groups.add(new ArrayList<>());
+        for (var item : sorted) {
+            var lightest = 0;
+            for (var i = 1; i < bins; i++)
+                if (loads[i] < loads[lightest])
+                    lightest = i;
+            groups.get(lightest).addAll(item);
+            loads[lightest] += splitFiles ? sizes.get(item.get(0)) : cost(item);
+        }
+        groups.removeIf(List::isEmpty);
+        return groups;
+    }
+
+    /**
+     * 一组目标文件的开销：目标本身加上需要解析的 import 闭包
+     */
+    private long cost(Collection<Path> files) {
+        var closure = new HashSet<Path>();
+        files.forEach(f -> collect(f, closure));
+        return closure.stream().mapToLong(sizes::get).sum();
+    }
+
+    private void collect(Path file, Set<Path> closure) {
+        if (closure.add(file))
+            imports.get(file).forEach(dep -> collect(dep, closure));
+    }
+
+    /**
+     * 同一 proto_path 下目标文件按 import 关系（不区分方向）划分的连通子图
+     */
+    private List<List<Path>> connected(List<Path> files) {
+        var parent = new HashMap<Path, Path>();
+        files.forEach(f -> parent.put(f, f));
+        for (var file : files) {
+            for (var dep : imports.get(file)) {
+                if (parent.containsKey(dep))
+                    parent.put(find(parent, file), find(parent, dep));
+            }
+        }
+        var groups = new TreeMap<Path, List<Path>>();
+        files.forEach(f -> groups.computeIfAbsent(find(parent, f), k -> new ArrayList<>()).add(f));
+        return List.copyOf(groups.values());
+    }
+
+    private static Path find(Map<Path, Path> parent, Path file) {
+        var root = file;
+        while (!parent.get(root).equals(root))
+            root = parent.get(root);
+        parent.put(file, root);
+        return root;
+    }
+
+    private Map<Path, Integer> levels() {
+        var componentOf = new HashMap<Path, Integer>();
+        var components = components();
+        for (var i = 0; i < components.size(); i++) {
+            for (var file : components.get(i))
+                componentOf.put(file, i);
+        }
+
+        // Tarjan 按逆拓扑序输出分量，被依赖的分量在前
+        var levels = new HashMap<Path, Integer>();
+        for (var component : components) {
+            var level = 0;
+            for (var file : component) {
+                for (var dep : imports.get(file)) {
+                    if (!componentOf.get(dep).equals(componentOf.get(file)))
+                        level = Math.max(level, levels.get(dep) + 1);
+                }
+            }
+            for (var file : component)
+                levels.put(file, level);
+        }
+        return levels;
+    }
+
+    /**
+     * Tarjan 强连通分量，迭代实现避免深层 import 链导致栈溢出
+     */
+    private List<List<Path>> components() {
+        var index = new HashMap<Path, Integer>();
+        var low = new HashMap<Path, Integer>();
+        var onStack = new HashSet<Path>();
+        var stack = new ArrayDeque<Path>();
+        var result = new ArrayList<List<Path>>();
+        var counter = 0;
+
+        for (var start : imports.keySet()) {
+            if (index.containsKey(start))
+                continue;
+
+            var work = new ArrayDeque<Map.Entry<Path, Iterator<Path>>>();
+            index.put(start, counter);
+            low.put(start, counter++);
+            stack.push(start);
+            onStack.add(start);
+            work.push(Map.entry(start, imports.get(start).iterator()));
+
+            while (!work.isEmpty()) {
+                var frame = work.peek();
+                var file = frame.getKey();
+                if (frame.getValue().hasNext()) {
+                    var dep = frame.getValue().next();
+                    if (!index.containsKey(dep)) {
+                        index.put(dep, counter);
+                        low.put(dep, counter++);
+                        stack.push(dep);
+                        onStack.add(dep);
+                        work.push(Map.entry(dep, imports.get(dep).iterator()));
+                    } else if (onStack.contains(dep)) {
+                        low.put(file, Math.min(low.get(file), index.get(dep)));
+                    }
+                    continue;
+                }
+
+                work.pop();
+                if (!work.isEmpty()) {
+                    var caller = work.peek().getKey();
+                    low.put(caller, Math.min(low.get(caller), low.get(file)));
+                }
+                if (low.get(file).equals(index.get(file))) {
+                    var component = new ArrayList<Path>();
+                    Path member;
+                    do {
+                        member = stack.pop();
+                        onStack.remove(member);
+                        component.add(member);
+                    } while (!member.equals(file));
+                    Collections.sort(component);
+                    result.add(component);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
@@ -1,11 +1,26 @@
 package io.osins.grpc.reactor.plugin.maven.service;
 
 import com.google.protobuf.DescriptorProtos;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoPaths;
 
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 
 public interface ProtoService {
-    List<DescriptorProtos.FileDescriptorSet> getFileDescriptorSet(String source, String outDesc, String outProtobuf);
+    List<Path> findProtoFiles(String source);
+    DescriptorRegistry getDescriptorRegistry(String source, String outDesc, String outProtobuf);
+    /**
+     * 调用 protoc 编译并生成 Java 源码，返回去重后的全部描述符，protoFiles 为其中的目标文件
+     */
+    DescriptorRegistry getDescriptorRegistry(List<Path> protoFiles, String outDesc, String outProtobuf);
+    /**
+     * 同上，import 按 protoPaths 解析，文件名是相对 proto_path 的路径
+     */
+    DescriptorRegistry getDescriptorRegistry(List<Path> protoFiles, ProtoPaths protoPaths, String outDesc, String outProtobuf);
+    /**
+     * 最近一次 getDescriptorRegistry 中编译失败的文件（相对 proto_path 的名称）及 protoc 报告的错误
+     */
+    Map<String, List<ProtocCompilerService.Diagnostic>> failures();
     DescriptorProtos.FileDescriptorSet compileAndLoadDescriptor(Path path, String outDesc, String outProtobuf);
 }
@@ -1,8 +1,14 @@
 package io.osins.grpc.reactor.plugin.maven.service;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
 
 public interface ProtocCompiler {
     void compile(ProtocCompilerService.ProtocCompileRequest request) throws IOException, InterruptedException, TimeoutException;
+
+    String version(String protocExecutable) throws IOException, InterruptedException;
+
+    Map<String, List<ProtocCompilerService.Diagnostic>> compileBatch(ProtocCompilerService.ProtocCompileRequest request) throws IOException, InterruptedException, TimeoutException;
 }
\ No newline at end of file
@@ -3,17 +3,22 @@ package io.osins.grpc.reactor.plugin.maven.service;
 import com.google.common.base.Strings;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.*;
+import java.util.regex.Pattern;
 
 /**
  * 增强版 Protoc 编译服务
@@ -22,6 +27,23 @@ import java.util.concurrent.*;
 public class ProtocCompilerService {
 
     private static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(2);
+    /**
+     * 定位出错文件时每次探测的超时：固定部分加上每个文件 2 秒，只生成 descriptor
+     */
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(30);
+    /**
+     * protoc 的错误行："file.proto:12:5: message"，没有位置时为 "file.proto: message"
+     */
+    private static final Pattern DIAGNOSTIC = Pattern.compile("^(.+?\\.proto)(?::(\\d+):(\\d+))?:\\s*(.*)$");
+
+    private final ProcessSupervisor supervisor;
+
+    /**
+     * supervisor 由调用方持有并负责关闭
+     */
+    public ProtocCompilerService(ProcessSupervisor supervisor) {
+        this.supervisor = supervisor;
+    }
 
     /**
      * 编译 .proto 文件
@@ -33,7 +55,12 @@ public class ProtocCompilerService {
         command.add(protocExec);
 
         command.add("--plugin=protoc-gen-grpc-java=" + Optional.ofNullable(request.getProtocGenGrpcJavaPath()).filter(s-> !Strings.isNullOrEmpty(s)).orElseThrow(()->new RuntimeException("protoc-gen-grpc-java path is required")));
-        command.add("--proto_path=" + request.getProtoDir().toAbsolutePath());
+        // 按给定顺序传入全部 proto_path，protoc 依次查找 import
+        var protoPaths = new LinkedHashSet<Path>();
+        if (request.getProtoPaths() != null)
+            request.getProtoPaths().forEach(p -> protoPaths.add(p.toAbsolutePath()));
+        protoPaths.add(request.getProtoDir().toAbsolutePath());
+        protoPaths.forEach(p -> command.add("--proto_path=" + p));
 
         if (request.getDescriptorSetOut() != null) {
             command.add("--descriptor_set_out=" + request.getDescriptorSetOut().toAbsolutePath());
@@ -55,60 +82,153 @@ public class ProtocCompilerService {
 
         log.info("Executing protoc command: {}", String.join(" ", command));
 
-        var pb = new ProcessBuilder(command);
-        pb.directory(request.getProtoDir().toFile());
+        var timeout = request.getTimeout() != null ? request.getTimeout() : DEFAULT_TIMEOUT;
+        var result = supervisor.run(command, request.getProtoDir(), timeout);
+        if (result.exitCode() != 0) {
+            throw new ProtocFailure(result.exitCode(), result.stderr().trim());
+        }
+    }
 
-        var process = pb.start();
+    /**
+     * 读取 protoc 版本，例如 "libprotoc 33.0"
+     */
+    public String version(String protocExecutable) throws IOException, InterruptedException {
+        try {
+            var result = supervisor.run(List.of(ensureExecutable(protocExecutable), "--version"), null, Duration.ofSeconds(30));
+            var output = (result.stdout() + result.stderr()).trim();
+            if (result.exitCode() != 0) {
+                throw new RuntimeException("protoc --version failed: " + output);
+            }
+            return output;
+        } catch (TimeoutException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
 
-        // 处理 stdout & stderr
-        var executor = Executors.newFixedThreadPool(2);
-        executor.submit(() -> logStream(process.getInputStream(), false));
-        executor.submit(() -> logStream(process.getErrorStream(), true));
+    /**
+     * 批量编译：一次 protoc 调用编译全部文件，输出一个合并的 descriptor set。
+     * 批量失败时对半拆分、只生成 descriptor 探测，以定位出错文件，再用剩余文件重新批量编译；
+     * 少数文件出错时探测次数约为 2·k·log2(N)，每次探测按自己的文件数计算超时。
+     * 只有 protoc 报告的编译错误按文件隔离，工具链、IO 与超时错误照常抛出。
+     *
+     * @return 编译失败的 proto 文件名及 protoc 报告的错误
+     */
+    public Map<String, List<Diagnostic>> compileBatch(ProtocCompileRequest request) throws IOException, InterruptedException, TimeoutException {
+        try {
+            compile(request);
+            return Map.of();
+        } catch (ProtocFailure e) {
+            if (request.getProtoFileNames().size() <= 1) {
+                log.error("Protoc failed for {}: {}", request.getProtoFileNames(), e.getMessage());
+                var failed = new LinkedHashMap<String, List<Diagnostic>>();
+                request.getProtoFileNames().forEach(f -> failed.put(f, diagnostics(e.getStderr())));
+                return failed;
+            }
+            log.warn("Batched protoc failed ({}), locating failing files among {}", e.getMessage(), request.getProtoFileNames().size());
+        }
 
-        var finished = process.waitFor(
-                request.getTimeout() != null ? request.getTimeout().toMillis() : DEFAULT_TIMEOUT.toMillis(),
-                TimeUnit.MILLISECONDS
-        );
+        var failed = new LinkedHashMap<String, List<Diagnostic>>();
+        var probeDir = Files.createTempDirectory("protoc-probe");
+        try {
+            locate(request, request.getProtoFileNames(), probeDir.resolve("probe.desc"), failed);
+        } finally {
+            FileUtils.deleteQuietly(probeDir.toFile());
+        }
 
-        executor.shutdown();
+        var remaining = request.getProtoFileNames().stream()
+                .filter(f -> !failed.containsKey(f))
+                .toList();
+        if (!remaining.isEmpty()) {
+            compile(request.toBuilder().protoFileNames(remaining).build());
+        }
+        return failed;
+    }
+
+    /**
+     * 已知 files 整体编译失败：两半分别探测，失败的一半继续拆分，直到单个文件
+     */
+    private void locate(ProtocCompileRequest request, List<String> files, Path descriptorSetOut, Map<String, List<Diagnostic>> failed) throws IOException, InterruptedException, TimeoutException {
+        var half = files.size() / 2;
+        for (var part : List.of(files.subList(0, half), files.subList(half, files.size()))) {
+            var probe = request.toBuilder()
+                    .protoFileNames(part)
+                    .javaOutDir(null)
+                    .grpcJavaOutDir(null)
+                    .descriptorSetOut(descriptorSetOut)
+                    .timeout(PROBE_TIMEOUT.plusSeconds(2L * part.size()))
+                    .build();
+            try {
+                compile(probe);
+            } catch (ProtocFailure e) {
+                if (part.size() > 1) {
+                    locate(request, part, descriptorSetOut, failed);
+                } else {
+                    log.error("Protoc failed for {}: {}", part.get(0), e.getMessage());
+                    failed.put(part.get(0), diagnostics(e.getStderr()));
+                }
+            }
+        }
+    }
 
-        if (!finished) {
-            process.destroyForcibly();
-            throw new TimeoutException("Protoc compilation timed out after " +
-                    (request.getTimeout() != null ? request.getTimeout() : DEFAULT_TIMEOUT));
+    /**
+     * 解析 protoc stderr 中的错误位置，行号与列号从 1 开始，没有位置的错误为 0
+     */
+    public static List<Diagnostic> diagnostics(String stderr) {
+        var diagnostics = new ArrayList<Diagnostic>();
+        if (stderr == null)
+            return diagnostics;
+        for (var line : stderr.split("\\R")) {
+            var matcher = DIAGNOSTIC.matcher(line.trim());
+            if (!matcher.matches())
+                continue;
+            var position = matcher.group(2) != null;
+            diagnostics.add(new Diagnostic(
+                    matcher.group(1),
+                    position ? Integer.parseInt(matcher.group(2)) : 0,
+                    position ? Integer.parseInt(matcher.group(3)) : 0,
+                    matcher.group(4)));
         }
+        return diagnostics;
+    }
 
-        var exitCode = process.exitValue();
-        if (exitCode != 0) {
-            throw new RuntimeException("Protoc failed with exit code " + exitCode);
+    /**
+     * protoc 报告的一条错误，file 是相对 proto_path 的文件名
+     */
+    public record Diagnostic(String file, int line, int column, String message) {
+        @Override
+        public String toString() {
+            return file + ":" + line + ":" + column + ": " + message;
         }
     }
 
     /**
-     * 确保 Windows 下加 .exe
+     * 确保 Windows 下加 .exe；给出路径时检查文件存在且可执行，只给出命令名时由 PATH 查找
      */
     private String ensureExecutable(String protoc) {
-        if (System.getProperty("os.name").toLowerCase().contains("win") && !protoc.endsWith(".exe")) {
-            return protoc + ".exe";
+        var executable = protoc;
+        if (System.getProperty("os.name").toLowerCase().contains("win") && !executable.endsWith(".exe")) {
+            executable = executable + ".exe";
         }
-        return protoc;
+
+        var path = Path.of(executable);
+        if (path.getParent() != null && !Files.isExecutable(path)) {
+            throw new IllegalStateException("protoc executable not found or not executable: " + path);
+        }
+        return executable;
     }
 
     /**
-     * 打印进程输出流
+     * protoc 以非 0 退出码结束，stderr 是它报告的编译错误
      */
-    private void logStream(java.io.InputStream inputStream, boolean isError) {
-        try (var reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (isError) {
-                    log.error("[protoc] {}", line);
-                } else {
-                    log.info("[protoc] {}", line);
-                }
-            }
-        } catch (IOException e) {
-            log.error("Error reading protoc output", e);
+    @Getter
+    public static class ProtocFailure extends RuntimeException {
+        private final int exitCode;
+        private final String stderr;
+
+        public ProtocFailure(int exitCode, String stderr) {
+            super("Protoc failed with exit code " + exitCode + ": " + stderr);
+            this.exitCode = exitCode;
+            this.stderr = stderr;
         }
     }
 
@@ -116,11 +236,12 @@ public class ProtocCompilerService {
      * 编译参数
      */
     @Data
-    @Builder
+    @Builder(toBuilder = true)
     public static class ProtocCompileRequest {
         private String protocExecutable;           // e.g. "protoc"
         private String protocGenGrpcJavaPath;      // e.g. ".../protoc-gen-grpc-java.exe"
-        private Path protoDir;                     // proto 文件目录
+        private Path protoDir;                     // proto 文件目录，文件名相对于它
+        private List<Path> protoPaths;             // 全部 proto_path，例如源码目录与依赖 jar 的解出目录（可选）
         private List<String> protoFileNames;       // proto 文件名列表
         private Path javaOutDir;                   // java 输出目录
         private Path grpcJavaOutDir;               // grpc-java 输出目录
@@ -0,0 +1,153 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoFiles;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * 跨模块、跨构建共享的 protoc 输出缓存（按内容寻址）。
+ * key 覆盖 proto 内容及其 import 闭包、protoc 版本和 grpc 插件坐标，
+ * 条目保存合并后的 descriptor set 以及 java/、grpc-java/ 输出。
+ */
+@Slf4j
+@Singleton
+public class ProtocOutputCache {
+    private static final String FORMAT = "protoc-output-cache-v1";
+    private static final String DESCRIPTOR = "descriptor.desc";
+
+    private final Path directory;
+    private final boolean hardLinks;
+    private final String resolve;
+
+    @Inject
+    public ProtocOutputCache(
+            @Named("protocCacheDirectory") String directory,
+            @Named("protocCacheHardLinks") boolean hardLinks,
+            @Named("resolve") String resolve
+    ) {
+        this.directory = directory == null || directory.isBlank() ? null : Paths.get(directory);
+        this.hardLinks = hardLinks;
+        this.resolve = resolve;
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * 计算一个编译批次的缓存 key，import 闭包按 protoPaths 的顺序查找，只追踪能找到的文件，
+     * well-known types 由 protoc 自带，已包含在 protoc 版本中
+     */
+    public String key(String protocVersion, List<Path> protoPaths, List<String> fileNames) throws IOException {
+        var contents = new TreeMap<String, String>();
+        var queue = new ArrayDeque<>(fileNames);
+        while (!queue.isEmpty()) {
+            var name = queue.poll();
+            var file = protoPaths.stream()
+                    .map(dir -> dir.resolve(name))
+                    .filter(Files::isRegularFile)
+                    .findFirst()
+                    .orElse(null);
+            if (contents.containsKey(name) || file == null)
+                continue;
+
+            var content = Files.readString(file);
+            contents.put(name, ProtoFiles.sha256(content.getBytes(StandardCharsets.UTF_8)));
+            queue.addAll(ProtoFiles.imports(content));
+        }
+
+        var key = new StringBuilder(FORMAT)
+                .append('\n').append(protocVersion)
+                .append('\n').append(resolve)
+                .append('\n').append(String.join(",", fileNames.stream().sorted().toList()));
+        contents.forEach((name, hash) -> key.append('\n').append(name).append('=').append(hash));
+
+        return ProtoFiles.sha256(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 从缓存恢复编译结果，未命中时返回 false
+     */
+    public boolean restore(String key, Path descriptorOut, Path javaOut, Path grpcJavaOut) throws IOException {
+        var entry = entry(key);
+        if (!Files.isRegularFile(entry.resolve(DESCRIPTOR)))
+            return false;
+
+        Files.copy(entry.resolve(DESCRIPTOR), descriptorOut, StandardCopyOption.REPLACE_EXISTING);
+        copyTree(entry.resolve("java"), javaOut, hardLinks);
+        copyTree(entry.resolve("grpc-java"), grpcJavaOut, hardLinks);
+
+        log.info("Restored protoc output from cache: {}", entry);
+        return true;
+    }
+
+    /**
+     * 写入缓存：先写临时目录再原子改名，多个模块并发写同一条目时先完成者生效
+     */
+    public void store(String key, Path descriptor, Path javaDir, Path grpcJavaDir) {
+        var entry = entry(key);
+        if (Files.exists(entry))
+            return;
+
+        Path temp = null;
+        try {
+            Files.createDirectories(entry.getParent());
+            temp = Files.createTempDirectory(entry.getParent(), key + ".tmp");
+            copyTree(javaDir, temp.resolve("java"), false);
+            copyTree(grpcJavaDir, temp.resolve("grpc-java"), false);
+            Files.copy(descriptor, temp.resolve(DESCRIPTOR));
+
+            Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Stored protoc output in cache: {}", entry);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            log.debug("Cache entry already stored by another build: {}", entry);
+        } catch (IOException e) {
+            log.warn("Failed to store protoc output in cache {}: {}", entry, e.getMessage());
+        } finally {
+            if (temp != null)
+                FileUtils.deleteQuietly(temp.toFile());
+        }
+    }
+
+    private Path entry(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    /**
+     * 复制目录树；link 为 true 时优先建立硬链接，跨文件系统等失败时退回复制。
+     * 目标文件先删除再写入，避免通过硬链接改写缓存内容
+     */
+    public static void copyTree(Path from, Path to, boolean link) throws IOException {
+        if (!Files.isDirectory(from))
+            return;
+
+        try (Stream<Path> paths = Files.walk(from)) {
+            for (var file : paths.filter(Files::isRegularFile).toList()) {
+                var target = to.resolve(from.relativize(file).toString());
+                Files.createDirectories(target.getParent());
+                Files.deleteIfExists(target);
+
+                if (link) {
+                    try {
+                        Files.createLink(target, file);
+                        continue;
+                    } catch (IOException | UnsupportedOperationException e) {
+                        log.debug("Hard link failed, copying instead: {}", e.getMessage());
+                    }
+                }
+                Files.copy(file, target);
+            }
+        }
+    }
+}
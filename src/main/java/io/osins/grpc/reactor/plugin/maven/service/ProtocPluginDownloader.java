@@ -4,6 +4,7 @@ import com.google.common.base.Strings;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoFiles;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.maven.execution.MavenSession;
@@ -12,6 +13,11 @@ import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.resolution.ArtifactRequest;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 @Slf4j
@@ -23,7 +29,10 @@ public class ProtocPluginDownloader {
     private final MavenProject project;
     private final RepositorySystem repositorySystem; // 注入标准 Aether RepositorySystem
 
-    private String cachedPath;
+    /**
+     * 已解析的坐标 -> 本地路径
+     */
+    private final Map<String, String> cachedPaths = new HashMap<>();
 
     @Inject
     @Named("resolve")
@@ -45,7 +54,21 @@ public class ProtocPluginDownloader {
                 arr.map(a->a[4]).orElse("1.76.0"));
     }
 
+    /**
+     * 解析 protoc，坐标格式 groupId:artifactId:version 或 groupId:artifactId:classifier:extension:version
+     */
+    public synchronized String resolveProtoc(String coordinates) {
+        var arr = coordinates.split(":");
+        if (arr.length == 3)
+            return resolve(arr[0], arr[1], detectOsClassifier(), "exe", arr[2]);
+        if (arr.length == 5)
+            return resolve(arr[0], arr[1], arr[2], arr[3], arr[4]);
+        throw new RuntimeException("Invalid protoc artifact: " + coordinates);
+    }
+
     public synchronized String resolve(String groupId, String artifactId, String classifier, String extension, String version) {
+        var coordinates = String.join(":", groupId, artifactId, classifier, extension, version);
+        var cachedPath = cachedPaths.get(coordinates);
         if (cachedPath != null) return cachedPath;
 
         log.info("Resolving {}:{}:{}:{}:{}", groupId, artifactId, classifier, extension, version);
@@ -63,9 +86,11 @@ public class ProtocPluginDownloader {
             var file = result.getArtifact().getFile();
 
             if (!file.exists()) {
-                throw new RuntimeException("protoc-gen-grpc-java not found: " + file.getAbsolutePath());
+                throw new RuntimeException(artifactId + " not found: " + file.getAbsolutePath());
             }
 
+            verifyChecksum(file);
+
             // 给非 Windows 系统设置可执行权限
             if (!System.getProperty("os.name").toLowerCase().contains("win")) {
                 boolean ok = file.setExecutable(true);
@@ -73,17 +98,36 @@ public class ProtocPluginDownloader {
             }
 
             cachedPath = file.getAbsolutePath();
+            cachedPaths.put(coordinates, cachedPath);
             return cachedPath;
         } catch (Exception e) {
-            log.error("Error resolving protoc-gen-grpc-java: {}", e.getMessage(), e);
+            log.error("Error resolving {}: {}", artifactId, e.getMessage(), e);
             return null;
         }
     }
 
+    /**
+     * 与本地仓库中随构件下载的 .sha1 校验文件比对，没有校验文件时跳过
+     */
+    private static void verifyChecksum(File file) throws IOException {
+        var checksumFile = new File(file.getPath() + ".sha1");
+        if (!checksumFile.isFile()) {
+            log.debug("No checksum file for {}", file);
+            return;
+        }
+
+        var expected = Files.readString(checksumFile.toPath()).trim().split("\\s+")[0];
+        var actual = ProtoFiles.digest(file.toPath(), "SHA-1");
+        if (!expected.equalsIgnoreCase(actual)) {
+            throw new RuntimeException("Checksum mismatch for " + file + ": expected " + expected + ", actual " + actual);
+        }
+        log.debug("Verified checksum of {}", file);
+    }
+
     /**
      * 自动识别操作系统类型，生成 Maven classifier
      */
-    private String detectOsClassifier() {
+    public String detectOsClassifier() {
         var os = System.getProperty("os.name").toLowerCase();
         var arch = System.getProperty("os.arch").toLowerCase();
 
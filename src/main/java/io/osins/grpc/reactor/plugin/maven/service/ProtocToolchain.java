@@ -0,0 +1,229 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import com.google.common.base.Strings;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoFiles;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.SessionData;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * protoc 与 protoc-gen-grpc-java 的解析结果。
+ * 同一次 Maven 构建的所有模块共用 RepositorySystemSession 中的结果；
+ * 解析记录同时保存在本地仓库，文件未变化时之后的构建不再访问 Aether。
+ */
+@Slf4j
+@Singleton
+public class ProtocToolchain {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final String SESSION_KEY = ProtocToolchain.class.getName();
+    private static final int FORMAT = 1;
+
+    /**
+     * 常驻进程（mvnd）中跨构建保留的解析记录，文件大小或修改时间变化时失效；PATH 上的 protoc 不保留
+     */
+    private static final Map<String, Record> RESIDENT = new ConcurrentHashMap<>();
+
+    public record Toolchain(String protoc, String protocVersion, String grpcPlugin) {
+    }
+
+    @Data
+    static class Record {
+        private int format = FORMAT;
+        private String coordinates;
+        private String protocVersion;
+        private Entry protoc;
+        private Entry grpcPlugin;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Entry {
+        private String path;
+        private long size;
+        private long lastModified;
+        private String sha256;
+    }
+
+    private final MavenSession session;
+    private final ProtocPluginDownloader downloader;
+    private final ProtocCompiler protocCompiler;
+    private final String protocArtifact;
+    private final String resolve;
+    private final BuildMetrics metrics;
+
+    private Toolchain toolchain;
+
+    @Inject
+    public ProtocToolchain(
+            MavenSession session,
+            ProtocPluginDownloader downloader,
+            ProtocCompiler protocCompiler,
+            @Named("protocArtifact") String protocArtifact,
+            @Named("resolve") String resolve,
+            BuildMetrics metrics
+    ) {
+        this.session = session;
+        this.downloader = downloader;
+        this.protocCompiler = protocCompiler;
+        this.protocArtifact = protocArtifact;
+        this.resolve = resolve;
+        this.metrics = metrics;
+    }
+
+    public synchronized Toolchain get() {
+        if (toolchain != null)
+            return toolchain;
+
+        var key = SESSION_KEY + ":" + coordinates();
+        var data = sessionData();
+        if (data != null && data.get(key) instanceof Toolchain shared) {
+            log.debug("Using protoc toolchain resolved earlier in this session: {}", shared);
+            return toolchain = shared;
+        }
+
+        Toolchain resolved;
+        try (var ignored = metrics.phase("toolchain.resolve")) {
+            resolved = resident().or(this::load).orElseGet(this::resolveAndSave);
+        }
+        if (data != null)
+            data.set(key, resolved);
+
+        log.info("protoc toolchain: {} ({}), grpc plugin: {}", resolved.protoc(), resolved.protocVersion(), resolved.grpcPlugin());
+        return toolchain = resolved;
+    }
+
+    private String coordinates() {
+        return Strings.nullToEmpty(protocArtifact) + "|" + Strings.nullToEmpty(resolve) + "|" + downloader.detectOsClassifier();
+    }
+
+    private Optional<Toolchain> resident() {
+        var record = RESIDENT.get(coordinates());
+        if (record == null || !unchanged(record.getProtoc()) || !unchanged(record.getGrpcPlugin()))
+            return Optional.empty();
+
+        log.debug("Using protoc toolchain resolved earlier in this JVM");
+        return Optional.of(new Toolchain(record.getProtoc().getPath(), record.getProtocVersion(), record.getGrpcPlugin().getPath()));
+    }
+
+    /**
+     * 从本地仓库读取解析记录，文件缺失或大小、修改时间变化时视为失效
+     */
+    private Optional<Toolchain> load() {
+        var file = recordFile();
+        if (file == null || !Files.isRegularFile(file))
+            return Optional.empty();
+
+        try {
+            var record = GSON.fromJson(Files.readString(file), Record.class);
+            if (record == null || record.getFormat() != FORMAT || !coordinates().equals(record.getCoordinates())
+                    || !unchanged(record.getGrpcPlugin()) || (record.getProtoc() != null && !unchanged(record.getProtoc())))
+                return Optional.empty();
+
+            // PATH 上的 protoc 可能随时被替换，每次构建重新读取版本
+            var protoc = record.getProtoc() != null ? record.getProtoc().getPath() : "protoc";
+            var version = record.getProtoc() != null ? record.getProtocVersion() : protocCompiler.version(protoc);
+
+            if (record.getProtoc() != null)
+                RESIDENT.put(record.getCoordinates(), record);
+            log.debug("Loaded protoc toolchain record: {}", file);
+            return Optional.of(new Toolchain(protoc, version, record.getGrpcPlugin().getPath()));
+        } catch (Exception e) {
+            log.debug("Ignoring protoc toolchain record {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Toolchain resolveAndSave() {
+        var grpcPlugin = downloader.resolveProtocGenGrpcJava();
+        if (grpcPlugin == null)
+            throw new RuntimeException("protoc-gen-grpc-java could not be resolved: " + resolve);
+
+        String protoc;
+        if (Strings.isNullOrEmpty(protocArtifact)) {
+            protoc = "protoc";
+        } else {
+            protoc = downloader.resolveProtoc(protocArtifact);
+            if (protoc == null)
+                throw new RuntimeException("protoc could not be resolved: " + protocArtifact);
+        }
+
+        try {
+            var version = protocCompiler.version(protoc);
+            var record = new Record();
+            record.setCoordinates(coordinates());
+            record.setProtocVersion(version);
+            record.setGrpcPlugin(entry(grpcPlugin));
+            record.setProtoc(Strings.isNullOrEmpty(protocArtifact) ? null : entry(protoc));
+            save(record);
+            if (record.getProtoc() != null)
+                RESIDENT.put(record.getCoordinates(), record);
+            return new Toolchain(protoc, version, grpcPlugin);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while checking protoc", e);
+        } catch (IOException e) {
+            throw new RuntimeException("protoc is not usable: " + protoc, e);
+        }
+    }
+
+    private static Entry entry(String path) throws IOException {
+        var file = new File(path);
+        return new Entry(file.getAbsolutePath(), file.length(), file.lastModified(), ProtoFiles.digest(file.toPath(), "SHA-256"));
+    }
+
+    private static boolean unchanged(Entry entry) {
+        if (entry == null)
+            return false;
+        var file = new File(entry.getPath());
+        return file.isFile() && file.canExecute() && file.length() == entry.getSize() && file.lastModified() == entry.getLastModified();
+    }
+
+    private void save(Record record) {
+        var file = recordFile();
+        if (file == null)
+            return;
+
+        try {
+            Files.createDirectories(file.getParent());
+            var temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Files.writeString(temp, GSON.toJson(record));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to save protoc toolchain record {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path recordFile() {
+        var repositorySession = session == null ? null : session.getRepositorySession();
+        if (repositorySession == null || repositorySession.getLocalRepository() == null)
+            return null;
+
+        var name = ProtoFiles.sha256(coordinates().getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        return repositorySession.getLocalRepository().getBasedir().toPath()
+                .resolve(".osins-grpc").resolve("toolchain-" + name + ".json");
+    }
+
+    private SessionData sessionData() {
+        var repositorySession = session == null ? null : session.getRepositorySession();
+        return repositorySession == null ? null : repositorySession.getData();
+    }
+}
@@ -2,6 +2,13 @@ package io.osins.grpc.reactor.plugin.maven.service;
 
 import spoon.Launcher;
 
+import java.util.function.Predicate;
+
 public interface ReactiveCodeService {
     void generateSpringWebfluxConfig(Launcher launcher) throws Exception;
+
+    /**
+     * 只为通过过滤的 *Grpc 类（全限定名）生成客户端与配置
+     */
+    void generateSpringWebfluxConfig(Launcher launcher, Predicate<String> grpcClassFilter) throws Exception;
 }
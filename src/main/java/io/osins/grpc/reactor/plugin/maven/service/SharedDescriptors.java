@@ -0,0 +1,66 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * reactor 中各模块共用的描述符：按相对 proto_path 的文件名合并，公共 import 只保存一份、只链接一次。
+ * 模块在写锁下合并自己的编译结果，随后降级为读锁生成代码与描述符资源；
+ * 生成期间其他模块可以并发读取，但不能替换正在使用的文件。
+ */
+public final class SharedDescriptors {
+    private final DescriptorRegistry registry = new DescriptorRegistry();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 持有读锁期间可以使用的合并结果，关闭时释放读锁
+     */
+    public interface Lease extends AutoCloseable {
+        DescriptorRegistry registry();
+
+        @Override
+        void close();
+    }
+
+    public Lease merge(DescriptorRegistry compiled) {
+        lock.writeLock().lock();
+        try {
+            registry.replaceAll(compiled);
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return new Lease() {
+            private boolean closed;
+
+            @Override
+            public DescriptorRegistry registry() {
+                return registry;
+            }
+
+            @Override
+            public void close() {
+                if (!closed) {
+                    closed = true;
+                    lock.readLock().unlock();
+                }
+            }
+        };
+    }
+
+    /**
+     * 不需要共用时的租约：直接使用给定的描述符
+     */
+    public static Lease local(DescriptorRegistry registry) {
+        return new Lease() {
+            @Override
+            public DescriptorRegistry registry() {
+                return registry;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * mvnd 等常驻进程中跨构建保留的生成状态，按工程目录保存：常驻的 DescriptorRegistry 与内存中的清单。
+ * 最多保留 MAX_PROJECTS 个工程，最近最少使用的先淘汰；值为软引用，内存紧张时由 GC 回收。
+ * mojo 参数指纹变化，或磁盘上的清单不是上次写入的那一份（mvn clean、其他进程的构建）时状态作废，
+ * proto 的变化仍由清单规划发现。
+ */
+@Slf4j
+public final class WarmCache {
+    private static final int MAX_PROJECTS = 16;
+
+    public record State(String fingerprint, DescriptorRegistry registry, GenerationManifest manifest, long manifestSize, long manifestModified) {
+    }
+
+    private static final Map<String, SoftReference<State>> STATES = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SoftReference<State>> eldest) {
+            return size() > MAX_PROJECTS;
+        }
+    };
+
+    private WarmCache() {
+    }
+
+    /**
+     * 取出仍然有效的状态；无效的状态同时移除。取出后由调用方独占，生成完成后再 put 回来
+     */
+    public static synchronized State take(Path project, String fingerprint, Path manifestFile) {
+        var reference = STATES.remove(key(project));
+        var state = reference == null ? null : reference.get();
+        if (state == null)
+            return null;
+
+        if (!state.fingerprint().equals(fingerprint)) {
+            log.info("Mojo parameters changed, dropping warm generator state");
+            return null;
+        }
+        try {
+            if (!Files.isRegularFile(manifestFile) || Files.size(manifestFile) != state.manifestSize()
+                    || Files.getLastModifiedTime(manifestFile).toMillis() != state.manifestModified()) {
+                log.info("Generation manifest changed outside this process, dropping warm generator state");
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+
+        log.info("Reusing warm generator state: {} descriptors", state.registry().size());
+        return state;
+    }
+
+    /**
+     * 保存生成后的状态，同时记下清单文件的大小与修改时间
+     */
+    public static synchronized void put(Path project, String fingerprint, DescriptorRegistry registry, GenerationManifest manifest, Path manifestFile) {
+        try {
+            var state = new State(fingerprint, registry, manifest, Files.size(manifestFile), Files.getLastModifiedTime(manifestFile).toMillis());
+            STATES.put(key(project), new SoftReference<>(state));
+        } catch (IOException e) {
+            log.debug("Generation manifest not available, warm generator state not kept: {}", e.getMessage());
+        }
+    }
+
+    public static synchronized void invalidate(Path project) {
+        STATES.remove(key(project));
+    }
+
+    private static String key(Path project) {
+        return project.toAbsolutePath().normalize().toString();
+    }
+}
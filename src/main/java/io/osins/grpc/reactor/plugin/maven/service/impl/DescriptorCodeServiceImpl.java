@@ -0,0 +1,302 @@
+package io.osins.grpc.reactor.plugin.maven.service.impl;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import com.google.protobuf.DescriptorProtos;
+import io.osins.grpc.reactor.plugin.maven.model.MethodModel;
+import io.osins.grpc.reactor.plugin.maven.model.ServiceModel;
+import io.osins.grpc.reactor.plugin.maven.model.StubBeanModel;
+import io.osins.grpc.reactor.plugin.maven.service.BuildMetrics;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorCodeService;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorRegistry;
+import io.osins.grpc.reactor.plugin.maven.service.GeneratedOutput;
+import io.osins.grpc.reactor.plugin.maven.uitls.JavaImports;
+import io.osins.grpc.reactor.plugin.maven.uitls.JavaNames;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoFiles;
+import io.osins.grpc.reactor.plugin.maven.uitls.Strings;
+import io.pebbletemplates.pebble.PebbleEngine;
+import io.pebbletemplates.pebble.loader.ClasspathLoader;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Predicate;
+
+@Slf4j
+public class DescriptorCodeServiceImpl implements DescriptorCodeService {
+    private static final String STUB_UTILS = "io.osins.matrix.shared.grpc.client.StubUtils";
+    private static final String BUNDLE_CLASS = "GrpcDescriptors";
+    private static final String BUNDLE_RESOURCE = "grpc-descriptors.desc";
+    private static final String CLIENT_CALLS_CLASS = "ReactorClientCalls";
+    private static final String STUBS_CLASS = "ReactorStubs";
+    private static final String DEADLINE_PROPERTY = "grpc.client.deadlines.";
+
+    private final String packageName;
+    private final String channelName;
+    private final String outClient;
+    private final String resolve;
+    private final boolean directCalls;
+    private final ExecutorService executor;
+    private final GeneratedOutput output;
+    private final BuildMetrics metrics;
+    private final PebbleEngine engine;
+
+    @Inject
+    public DescriptorCodeServiceImpl(
+            @Named("packageName") String packageName,
+            @Named("channelName") String channelName,
+            @Named("outClient") String outClient,
+            @Named("resolve") String resolve,
+            @Named("clientMode") String clientMode,
+            ExecutorService executor,
+            GeneratedOutput output,
+            BuildMetrics metrics
+    ) {
+        this.packageName = packageName;
+        this.channelName = channelName;
+        this.outClient = outClient;
+        this.resolve = resolve;
+        this.directCalls = "call".equalsIgnoreCase(clientMode);
+        this.executor = executor;
+        this.output = output;
+        this.metrics = metrics;
+        this.engine = Engine.INSTANCE;
+    }
+
+    /**
+     * 模板只来自插件 classpath，引擎及其已编译模板在类加载器存活期间共用，mvnd 中多次构建不再重新解析
+     */
+    private static final class Engine {
+        private static final PebbleEngine INSTANCE = create();
+
+        private static PebbleEngine create() {
+            var loader = new ClasspathLoader(DescriptorCodeServiceImpl.class.getClassLoader());
+            loader.setPrefix("templates");
+            loader.setSuffix(".peb");
+            return new PebbleEngine.Builder()
+                    .loader(loader)
+                    .autoEscaping(false)
+                    .build();
+        }
+    }
+
+    @Override
+    public void generate(DescriptorRegistry registry, Predicate<String> grpcClassFilter) throws IOException {
+        var models = new ArrayList<ServiceModel>();
+        try (var ignored = metrics.phase("descriptor.model")) {
+            var names = new JavaNames(List.copyOf(registry.files()));
+            for (var file : registry.files()) {
+                for (var service : file.getServiceList()) {
+                    var model = model(file, service, names);
+                    if (grpcClassFilter.test(model.getGrpcClass()))
+                        models.add(model);
+                }
+            }
+        }
+        metrics.count("services", models.size());
+
+        // 配置类总是引用 ReactorStubs
+        generateClientCalls();
+
+        // 每个服务的渲染与写文件互不依赖，模板引擎是线程安全的
+        var futures = models.stream()
+                .map(model -> CompletableFuture.runAsync(() -> {
+                    log.info("Generating reactive client for {}", model.getGrpcClass());
+                    try {
+                        write(model.getClientPackage(), model.getClientClassName(), render("reactive-client", Map.of("service", model)), model.getProtoFile());
+                        write(model.getConfigPackage(), model.getConfigClassName(), render("reactive-config", Map.of("service", model)), model.getProtoFile());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor))
+                .toList();
+
+        try (var ignored = metrics.phase("descriptor.render")) {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io)
+                throw io.getCause();
+            throw e;
+        }
+
+        log.info("Generated clients for {} services from descriptors", models.size());
+    }
+
+    @Override
+    public void generateClientCalls() throws IOException {
+        write(packageName, STUBS_CLASS, render("reactor-stubs", Map.of("packageName", packageName, "className", STUBS_CLASS)));
+        write(packageName, CLIENT_CALLS_CLASS, render("reactor-client-calls", Map.of("packageName", packageName, "className", CLIENT_CALLS_CLASS, "stubsClassName", STUBS_CLASS)));
+    }
+
+    @Override
+    public void generateBundle(DescriptorRegistry registry, Collection<String> fileNames, Path resourceDirectory) throws IOException {
+        var resource = resourceDirectory.resolve(packageName.replace('.', '/')).resolve(BUNDLE_RESOURCE);
+
+        // 增量生成时 registry 只有受影响的文件，其余文件取自上一次的资源；已删除的文件不在 fileNames 的闭包中
+        var merged = new DescriptorRegistry();
+        if (Files.isRegularFile(resource)) {
+            try (var in = Files.newInputStream(resource)) {
+                merged.addAll(DescriptorRegistry.of(DescriptorProtos.FileDescriptorSet.parseFrom(in)));
+            } catch (IOException e) {
+                log.warn("Ignoring unreadable descriptor bundle {}: {}", resource, e.getMessage());
+            }
+        }
+        var bundle = merged.replaceAll(registry).closure(fileNames);
+        output.write(resource, bundle.toByteArray());
+
+        write(packageName, BUNDLE_CLASS, render("descriptor-bundle", Map.of(
+                "packageName", packageName,
+                "className", BUNDLE_CLASS,
+                "resource", BUNDLE_RESOURCE)));
+
+        log.info("Descriptor bundle {} with {} files", resource, bundle.getFileCount());
+    }
+
+    /**
+     * 类名、bean 名与 Spoon 生成器（ReactiveCodeServiceImpl / ObserverToReactor）保持一致
+     */
+    public ServiceModel model(DescriptorProtos.FileDescriptorProto file, DescriptorProtos.ServiceDescriptorProto service, JavaNames names) {
+        var javaPackage = ProtoFiles.javaPackage(file);
+        var grpcSimpleName = service.getName() + "Grpc";
+
+        // 客户端
+        var protoName = file.getPackage().isEmpty() ? service.getName() : file.getPackage() + "." + service.getName();
+        var clientClassName = grpcSimpleName.replaceAll("(\\w+\\$|Service)", "") + "Client";
+        var clientImports = new JavaImports(packageName, clientClassName);
+        clientImports.use("lombok.extern.slf4j.Slf4j");
+        clientImports.use("org.springframework.stereotype.Service");
+        clientImports.use("reactor.core.publisher.Mono");
+        var streaming = service.getMethodList().stream().anyMatch(m -> m.getServerStreaming() || m.getClientStreaming());
+        if (streaming)
+            clientImports.use("reactor.core.publisher.Flux");
+        clientImports.use("org.springframework.beans.factory.annotation.Value");
+        if (!directCalls)
+            clientImports.use(packageName, STUBS_CLASS);
+        var clientGrpc = clientImports.use(javaPackage, grpcSimpleName);
+        // 流式方法在两种模式下都直接使用 ClientCall，以便把两个方向的需求传递给 gRPC 流控
+        var clientCalls = directCalls || streaming ? clientImports.use(packageName, CLIENT_CALLS_CLASS) : null;
+
+        var methods = new ArrayList<MethodModel>();
+        for (var method : service.getMethodList()) {
+            var request = names.message(method.getInputType());
+            var response = names.message(method.getOutputType());
+            // 请求流总是作为 Flux 参数
+            var requestParameter = method.getClientStreaming() || simpleName(request).endsWith("Request");
+            var directCall = directCalls && !method.getServerStreaming() && !method.getClientStreaming();
+
+            methods.add(MethodModel.builder()
+                    .rpcName(method.getName())
+                    .name(JavaNames.stubMethodName(method.getName()))
+                    .methodGetter(JavaNames.methodGetterName(method.getName()))
+                    .requestType(requestParameter ? clientImports.use(request) : null)
+                    .responseType(clientImports.use(response))
+                    .requestParameter(requestParameter)
+                    .clientStreaming(method.getClientStreaming())
+                    .serverStreaming(method.getServerStreaming())
+                    .directCall(directCall)
+                    .methodDescriptor(clientGrpc + "." + JavaNames.methodGetterName(method.getName()) + "()")
+                    .requestDefault(requestParameter ? null : clientImports.use(request) + ".getDefaultInstance()")
+                    .deadlineField(JavaNames.stubMethodName(method.getName()) + "Deadline")
+                    .deadlineValue("${" + DEADLINE_PROPERTY + protoName + "." + method.getName() + ":" + ProtoFiles.deadlineMillis(method) + "}")
+                    .build());
+        }
+
+        // 配置类
+        var configPackage = packageName + ".config";
+        var configClassName = grpcSimpleName + "Config";
+        var configImports = new JavaImports(configPackage, configClassName);
+        configImports.use("lombok.extern.slf4j.Slf4j");
+        configImports.use("org.springframework.context.annotation.Configuration");
+        configImports.use("lombok.RequiredArgsConstructor");
+        configImports.use("org.springframework.context.annotation.Bean");
+        configImports.use("reactor.core.publisher.Mono");
+        configImports.use("io.grpc.ManagedChannel");
+        configImports.use(STUB_UTILS);
+        configImports.use(packageName, STUBS_CLASS);
+        var configGrpc = configImports.use(javaPackage, grpcSimpleName);
+
+        var stubBeans = new ArrayList<StubBeanModel>();
+        stubBeans.add(stubBean(service, grpcSimpleName, configGrpc, "newStub", "Stub", "newAsyncStub"));
+        if (supportsBlockingV2())
+            stubBeans.add(stubBean(service, grpcSimpleName, configGrpc, "newBlockingV2Stub", "BlockingV2Stub", "newBlockingStub"));
+        stubBeans.add(stubBean(service, grpcSimpleName, configGrpc, "newBlockingStub", "BlockingStub", "newBlockingStub"));
+        stubBeans.add(stubBean(service, grpcSimpleName, configGrpc, "newFutureStub", "FutureStub", "newFutureStub"));
+
+        return ServiceModel.builder()
+                .protoName(protoName)
+                .protoFile(file.getName())
+                .grpcClass(javaPackage.isEmpty() ? grpcSimpleName : javaPackage + "." + grpcSimpleName)
+                .clientPackage(packageName)
+                .clientClassName(clientClassName)
+                .clientImports(clientImports.imports())
+                .clientStubType(clientGrpc + "." + service.getName() + "Stub")
+                .clientCalls(clientCalls)
+                .stubField(Strings.firstToLowerCase(service.getName() + "Stub"))
+                .methods(methods)
+                .configPackage(configPackage)
+                .configClassName(configClassName)
+                .configImports(configImports.imports())
+                .channelParameter("reactor" + Strings.firstToUpperCase(channelName))
+                .stubBeans(stubBeans)
+                .build();
+    }
+
+    private static StubBeanModel stubBean(DescriptorProtos.ServiceDescriptorProto service, String grpcSimpleName, String grpcRef, String factory, String stubSuffix, String utilMethod) {
+        var beanName = "reactor" + Strings.firstToUpperCase(Strings.firstToLowerCase(grpcSimpleName.replaceAll("Service", "") + factory.replaceAll("new", "")));
+        return StubBeanModel.builder()
+                .beanName(beanName)
+                .stubType(grpcRef + "." + service.getName() + stubSuffix)
+                .factoryMethod(grpcRef + "::" + factory)
+                .utilMethod(utilMethod)
+                .build();
+    }
+
+    /**
+     * newBlockingV2Stub 从 grpc-java 1.70 开始生成，按 resolve 中的插件版本判断，无法识别时按新版本处理
+     */
+    private boolean supportsBlockingV2() {
+        var parts = resolve == null ? new String[0] : resolve.split(":");
+        if (parts.length < 5)
+            return true;
+
+        var version = parts[4].split("\\.");
+        try {
+            var major = Integer.parseInt(version[0]);
+            var minor = version.length > 1 ? Integer.parseInt(version[1]) : 0;
+            return major > 1 || (major == 1 && minor >= 70);
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static String simpleName(JavaNames.JavaType type) {
+        var name = type.nestedName();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private String render(String template, Map<String, Object> context) throws IOException {
+        var writer = new StringWriter();
+        engine.getTemplate(template).evaluate(writer, context);
+        return writer.toString();
+    }
+
+    private void write(String pkg, String className, String content) throws IOException {
+        write(pkg, className, content, null);
+    }
+
+    private void write(String pkg, String className, String content, String owner) throws IOException {
+        var file = Paths.get(outClient, pkg.replace('.', '/'), className + ".java");
+        output.write(file, content, owner);
+    }
+}
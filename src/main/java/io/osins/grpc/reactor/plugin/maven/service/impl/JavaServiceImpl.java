@@ -2,6 +2,8 @@ package io.osins.grpc.reactor.plugin.maven.service.impl;
 
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
+import io.osins.grpc.reactor.plugin.maven.service.BuildMetrics;
+import io.osins.grpc.reactor.plugin.maven.service.ClasspathMinimizer;
 import io.osins.grpc.reactor.plugin.maven.service.JavaService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,8 +12,11 @@ import spoon.Launcher;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -27,8 +32,20 @@ public class JavaServiceImpl implements JavaService {
     @Named("utilPath")
     private String utilPath;
 
+    @Inject
+    @Named("minimalClasspath")
+    private boolean minimalClasspath;
+
+    @Inject
+    private BuildMetrics metrics;
+
     @Override
     public Launcher loadJavaCodes(String output) throws IOException {
+        return loadJavaCodes(output, List.of());
+    }
+
+    @Override
+    public Launcher loadJavaCodes(String output, Collection<String> grpcClassNames) throws IOException {
         var path = Paths.get(project.getBuild().getDirectory(), "/generated-sources", output);
         if (!path.toFile().exists()) {
             throw new IOException("load java codes, error, source path not exists: " + path.toAbsolutePath());
@@ -64,12 +81,27 @@ public class JavaServiceImpl implements JavaService {
                 .filter(artifact -> artifact.getFile().exists())
                 .map(artifact -> artifact.getFile().getAbsolutePath());
 
-        var packages = Stream.concat(
+        var fullClasspath = Stream.concat(
                 Stream.concat(allArtifacts, protobufArtifacts),
                 Stream.of(grpcJavaPath, javaPath, utilPath, outClient))
                 .distinct() // 去重
                 .toList();
 
+        var inputs = grpcInputs(grpcJavaPath, grpcClassNames);
+        var packages = fullClasspath;
+        if (minimalClasspath) {
+            try (var ignored = metrics.phase("spoon.minimizeClasspath")) {
+                var referenced = ClasspathMinimizer.referencedPackages(inputs);
+                packages = Stream.concat(
+                        ClasspathMinimizer.minimize(project.getArtifacts(), referenced).stream(),
+                        Stream.of(grpcJavaPath, javaPath, utilPath, outClient))
+                        .distinct()
+                        .toList();
+            }
+            log.info("JavaServiceImpl loadJavaCodes, minimized source classpath from {} to {} entries",
+                    fullClasspath.size(), packages.size());
+        }
+
         var launcher = new Launcher();
         var env = launcher.getEnvironment();
         env.setNoClasspath(true); // 避免类路径冲突
@@ -91,8 +123,17 @@ public class JavaServiceImpl implements JavaService {
         log.info("JavaServiceImpl loadJavaCodes, java version: {}", env.getComplianceLevel());
         log.info("JavaServiceImpl loadJavaCodes, source classpath: {}", Arrays.toString(env.getSourceClasspath()));
 
-        launcher.addInputResource(grpcJavaPath);
-        launcher.buildModel();
+        if (grpcClassNames.isEmpty()) {
+            launcher.addInputResource(grpcJavaPath);
+        } else {
+            inputs.forEach(file -> launcher.addInputResource(file.toString()));
+            log.info("JavaServiceImpl loadJavaCodes, limited to {} grpc classes", grpcClassNames.size());
+        }
+
+        try (var ignored = metrics.phase("spoon.buildModel")) {
+            launcher.buildModel();
+        }
+        metrics.count("spoon.classpathEntries", packages.size());
 
         launcher.getFactory().getEnvironment().setSourceOutputDirectory(Paths.get(grpcJavaPath).toFile());
 
@@ -100,4 +141,20 @@ public class JavaServiceImpl implements JavaService {
 
         return launcher;
     }
+
+    /**
+     * 需要加载的 *Grpc 源文件；未指定类名时为 grpc-java 目录下全部源码
+     */
+    private static List<Path> grpcInputs(String grpcJavaPath, Collection<String> grpcClassNames) throws IOException {
+        if (!grpcClassNames.isEmpty()) {
+            return grpcClassNames.stream()
+                    .map(name -> Paths.get(grpcJavaPath, name.replace('.', '/') + ".java"))
+                    .filter(Files::exists)
+                    .toList();
+        }
+
+        try (Stream<Path> paths = Files.walk(Paths.get(grpcJavaPath))) {
+            return paths.filter(p -> p.toString().endsWith(".java")).toList();
+        }
+    }
 }
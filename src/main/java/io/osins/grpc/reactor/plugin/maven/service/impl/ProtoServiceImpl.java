@@ -5,23 +5,35 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.google.protobuf.DescriptorProtos;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorRegistry;
+import io.osins.grpc.reactor.plugin.maven.service.GeneratedOutput;
 import io.osins.grpc.reactor.plugin.maven.service.ProtocCompiler;
+import io.osins.grpc.reactor.plugin.maven.service.ProcessSupervisor;
+import io.osins.grpc.reactor.plugin.maven.service.ProtoImportGraph;
 import io.osins.grpc.reactor.plugin.maven.service.ProtoService;
 import io.osins.grpc.reactor.plugin.maven.service.ProtocCompilerService;
-import io.osins.grpc.reactor.plugin.maven.service.ProtocPluginDownloader;
+import io.osins.grpc.reactor.plugin.maven.service.ProtocOutputCache;
+import io.osins.grpc.reactor.plugin.maven.service.ProtocToolchain;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoFiles;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoPaths;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.maven.project.MavenProject;
-import org.eclipse.sisu.PreDestroy;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 @Slf4j
@@ -31,10 +43,14 @@ public class ProtoServiceImpl implements ProtoService {
     private final ProtocCompiler protocCompiler;
     private final ExecutorService executor;
     private final MavenProject project;
-    private final ProtocPluginDownloader protocPluginDownloader;
+    private final ProtocToolchain toolchain;
+    private final ProtocOutputCache outputCache;
+    private final GeneratedOutput output;
+    private final ProcessSupervisor supervisor;
+    private final Map<String, List<ProtocCompilerService.Diagnostic>> failures = new ConcurrentHashMap<>();
 
     @Override
-    public List<DescriptorProtos.FileDescriptorSet> getFileDescriptorSet(String source, String outDesc, String outProtobuf) {
+    public List<Path> findProtoFiles(String source) {
         var protoPath = project.getBasedir() + source;
 
         log.info("Loading proto files from: {}", protoPath);
@@ -43,27 +59,78 @@ public class ProtoServiceImpl implements ProtoService {
             throw new RuntimeException("proto file not found: " + protoPath);
 
         try (Stream<Path> paths = Files.walk(Paths.get(protoPath))) {
-            var futures = paths
+            return paths
                     .filter(Files::isRegularFile)
                     .filter(path -> path.toString().endsWith(".proto"))
-                    .map(path -> CompletableFuture.supplyAsync(() -> compileAndLoadDescriptor(path, outDesc, outProtobuf), executor))
+                    .sorted()
                     .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Error listing proto files: " + protoPath, ex);
+        }
+    }
+
+    @Override
+    public DescriptorRegistry getDescriptorRegistry(String source, String outDesc, String outProtobuf) {
+        return getDescriptorRegistry(findProtoFiles(source), ProtoPaths.of(List.of(Paths.get(project.getBasedir() + source))), outDesc, outProtobuf);
+    }
+
+    @Override
+    public DescriptorRegistry getDescriptorRegistry(List<Path> protoFiles, String outDesc, String outProtobuf) {
+        return getDescriptorRegistry(protoFiles, ProtoPaths.none(), outDesc, outProtobuf);
+    }
 
-            return futures.stream()
-                    .map(CompletableFuture::join)
-                    .filter(Objects::nonNull)
+    @Override
+    public DescriptorRegistry getDescriptorRegistry(List<Path> protoFiles, ProtoPaths protoPaths, String outDesc, String outProtobuf) {
+        failures.clear();
+        try {
+            // 按 import 依赖图把文件打包成可并行的 protoc 任务，同一任务共用 proto_path，
+            // 被依赖的文件只在一个任务里生成，开销大的任务先提交
+            var slots = executor instanceof ThreadPoolExecutor pool ? pool.getMaximumPoolSize() : Runtime.getRuntime().availableProcessors();
+            var graph = ProtoImportGraph.build(protoFiles, protoPaths);
+            var jobs = graph.jobs(slots);
+            graph.report(jobs, slots);
+
+            var futures = jobs.stream()
+                    .map(job -> CompletableFuture.supplyAsync(() -> compileBatchAndLoadDescriptors(job.protoDir(), job.files(), protoPaths, outDesc, outProtobuf), executor))
                     .toList();
-        } catch (Exception ex) {
-            log.error("Error loading proto files: {}", ex.getMessage(), ex);
-            return List.of();
+
+            // 各批次的 import 闭包互相重叠，按文件名合并成一份
+            var result = new DescriptorRegistry();
+            try {
+                for (var future : futures) {
+                    result.addAll(future.get());
+                }
+            } catch (InterruptedException e) {
+                // Maven 中断构建：结束全部 protoc 进程，未开始的任务直接取消
+                supervisor.cancelAll("Build interrupted");
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new CancellationException("proto compilation interrupted");
+            } catch (ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                throw new RuntimeException("Error compiling proto files: " + e.getCause().getMessage(), e.getCause());
+            }
+            return result;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Error reading proto imports", ex);
         }
     }
 
-    public DescriptorProtos.FileDescriptorSet compileAndLoadDescriptor(Path protoPath, String outDesc, String outProtobuf) {
-        log.info("Loading proto file: {}", protoPath);
+    /**
+     * 一次 protoc 编译同一 proto_path 下的一组文件，再把合并的 descriptor set 拆分成每个文件各自的 .desc
+     */
+    public DescriptorRegistry compileBatchAndLoadDescriptors(Path protoDir, List<Path> protoFiles, ProtoPaths protoPaths, String outDesc, String outProtobuf) {
+        var fileNames = protoFiles.stream()
+                .map(protoPaths::name)
+                .sorted()
+                .toList();
+        var searchPaths = protoPaths.search(protoDir);
+
+        log.info("Compiling {} proto files in one batch: {}", fileNames.size(), protoDir);
 
+        Path batchFile = null;
+        Path stagePath = null;
         try {
-            var baseName = FilenameUtils.getBaseName(protoPath.getFileName().toString());
             var targetPath = Path.of(project.getBuild().getDirectory() + "/generated-sources");
             var descPath = Path.of(targetPath.toAbsolutePath() + outDesc);
             var generatedPath = Path.of(targetPath.toAbsolutePath() + outProtobuf);
@@ -74,34 +141,92 @@ public class ProtoServiceImpl implements ProtoService {
             Files.createDirectories(javaPath);
             Files.createDirectories(grpcJavaPath);
 
-            var protocGenGrpcJavaPath = protocPluginDownloader.resolveProtocGenGrpcJava();
-
-            var descFile = descPath.resolve(baseName + ".desc");
-            var request = ProtocCompilerService.ProtocCompileRequest.builder()
-                    .protocExecutable("protoc")
-                    .protocGenGrpcJavaPath(protocGenGrpcJavaPath)
-                    .protoDir(protoPath.getParent())
-                    .protoFileNames(List.of(protoPath.getFileName().toString()))
-                    .javaOutDir(javaPath)
-                    .grpcJavaOutDir(grpcJavaPath)
-                    .descriptorSetOut(descFile)
-                    .includeImports(true)
-                    .timeout(Duration.ofSeconds(60))
-                    .build();
-
-            protocCompiler.compile(request);
-
-            var descriptorBytes = Files.readAllBytes(descFile);
-            return DescriptorProtos.FileDescriptorSet.parseFrom(descriptorBytes);
-
+            batchFile = Files.createTempFile(descPath, "batch-", ".desc.tmp");
+
+            // 先输出到批次私有目录，便于整批写入缓存，再只把有变化的文件同步到输出目录
+            var stageRoot = Path.of(project.getBuild().getDirectory(), "osins-grpc", "staging");
+            Files.createDirectories(stageRoot);
+            stagePath = Files.createTempDirectory(stageRoot, "protoc-");
+            var stageJava = Files.createDirectories(stagePath.resolve("java"));
+            var stageGrpcJava = Files.createDirectories(stagePath.resolve("grpc-java"));
+
+            var tools = toolchain.get();
+            var cacheKey = outputCache.isEnabled() ? outputCache.key(tools.protocVersion(), searchPaths, fileNames) : null;
+            Map<String, List<ProtocCompilerService.Diagnostic>> failed;
+            if (cacheKey != null && outputCache.restore(cacheKey, batchFile, stageJava, stageGrpcJava)) {
+                failed = Map.of();
+            } else {
+                var request = ProtocCompilerService.ProtocCompileRequest.builder()
+                        .protocExecutable(tools.protoc())
+                        .protocGenGrpcJavaPath(tools.grpcPlugin())
+                        .protoDir(protoDir)
+                        .protoPaths(searchPaths)
+                        .protoFileNames(fileNames)
+                        .javaOutDir(stageJava)
+                        .grpcJavaOutDir(stageGrpcJava)
+                        .descriptorSetOut(batchFile)
+                        .includeImports(true)
+                        .timeout(Duration.ofSeconds(Math.max(60, 2L * fileNames.size())))
+                        .build();
+
+                failed = protocCompiler.compileBatch(request);
+                if (!failed.isEmpty()) {
+                    log.error("Proto files failed to compile in {}: {}", protoDir, failed.keySet());
+                    failures.putAll(failed);
+                }
+                if (failed.size() == fileNames.size()) {
+                    return new DescriptorRegistry();
+                }
+                if (cacheKey != null && failed.isEmpty()) {
+                    outputCache.store(cacheKey, batchFile, stageJava, stageGrpcJava);
+                }
+            }
+
+            var compiled = new ArrayList<>(fileNames);
+            compiled.removeAll(failed.keySet());
+            var registry = DescriptorRegistry.of(DescriptorProtos.FileDescriptorSet.parseFrom(Files.readAllBytes(batchFile)), compiled);
+
+            // 按 descriptor 推算每个生成文件属于哪个 proto，批次只有一个目标时全部属于它
+            var owners = new HashMap<String, String>();
+            for (var fileName : compiled) {
+                registry.file(fileName).ifPresent(file -> ProtoFiles.javaSources(file).forEach(source -> owners.put(source, fileName)));
+            }
+            Function<String, String> owner = source -> owners.getOrDefault(source, compiled.size() == 1 ? compiled.get(0) : null);
+            output.sync(stageJava, javaPath, owner);
+            output.sync(stageGrpcJava, grpcJavaPath, owner);
+
+            for (var fileName : compiled) {
+                if (registry.file(fileName).isEmpty())
+                    continue;
+                output.write(descPath.resolve(FilenameUtils.removeExtension(fileName) + ".desc"), registry.closure(fileName).toByteArray(), fileName);
+            }
+            return registry;
+        } catch (CancellationException e) {
+            log.debug("Proto batch cancelled: {}", protoDir);
+            return new DescriptorRegistry();
         } catch (Exception e) {
-            log.error("Error compiling proto file: {}", protoPath, e);
-            return null;
+            // 工具链、IO 或超时等致命错误：结束其他批次的 protoc 进程，整个构建失败
+            log.error("Error compiling proto batch: {}", protoDir, e);
+            supervisor.cancelAll("Batch failed in " + protoDir + ": " + e.getMessage());
+            throw new CompletionException(e);
+        } finally {
+            if (batchFile != null)
+                FileUtils.deleteQuietly(batchFile.toFile());
+            if (stagePath != null)
+                FileUtils.deleteQuietly(stagePath.toFile());
         }
     }
 
-    @PreDestroy
-    public void shutdown() {
-        executor.shutdown();
+    @Override
+    public Map<String, List<ProtocCompilerService.Diagnostic>> failures() {
+        return Map.copyOf(failures);
+    }
+
+    public DescriptorProtos.FileDescriptorSet compileAndLoadDescriptor(Path protoPath, String outDesc, String outProtobuf) {
+        log.info("Loading proto file: {}", protoPath);
+
+        var fileName = protoPath.getFileName().toString();
+        var registry = compileBatchAndLoadDescriptors(protoPath.getParent(), List.of(protoPath), ProtoPaths.none(), outDesc, outProtobuf);
+        return registry.file(fileName).isPresent() ? registry.closure(fileName) : null;
     }
 }
@@ -1,15 +1,34 @@
 package io.osins.grpc.reactor.plugin.maven.service.impl;
 
+import com.google.inject.Inject;
+import io.osins.grpc.reactor.plugin.maven.service.ProcessSupervisor;
 import io.osins.grpc.reactor.plugin.maven.service.ProtocCompiler;
 import io.osins.grpc.reactor.plugin.maven.service.ProtocCompilerService;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
 
 public class ProtocCompilerImpl extends ProtocCompilerService implements ProtocCompiler {
     // 直接继承增强版实现即可
+    @Inject
+    public ProtocCompilerImpl(ProcessSupervisor supervisor) {
+        super(supervisor);
+    }
+
     @Override
     public void compile(ProtocCompileRequest request) throws IOException, InterruptedException, TimeoutException {
         super.compile(request);
     }
+
+    @Override
+    public String version(String protocExecutable) throws IOException, InterruptedException {
+        return super.version(protocExecutable);
+    }
+
+    @Override
+    public Map<String, List<Diagnostic>> compileBatch(ProtocCompileRequest request) throws IOException, InterruptedException, TimeoutException {
+        return super.compileBatch(request);
+    }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package io.osins.grpc.reactor.plugin.maven.service.impl;
 
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
+import io.osins.grpc.reactor.plugin.maven.service.BuildMetrics;
+import io.osins.grpc.reactor.plugin.maven.service.GeneratedOutput;
 import io.osins.grpc.reactor.plugin.maven.service.ObserverToReactor;
 import io.osins.grpc.reactor.plugin.maven.service.ReactiveCodeService;
 import io.osins.grpc.reactor.plugin.maven.uitls.Strings;
@@ -10,16 +12,27 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import reactor.core.publisher.Mono;
 import spoon.Launcher;
+import spoon.compiler.Environment;
 import spoon.reflect.code.CtBlock;
 import spoon.reflect.declaration.CtClass;
 import spoon.reflect.declaration.CtParameter;
+import spoon.reflect.declaration.CtType;
 import spoon.reflect.declaration.ModifierKind;
 import spoon.reflect.factory.Factory;
 import spoon.reflect.reference.CtTypeReference;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 @Slf4j
 public class ReactiveCodeServiceImpl implements ReactiveCodeService {
@@ -27,49 +40,105 @@ public class ReactiveCodeServiceImpl implements ReactiveCodeService {
     private final String packageName;
     private final String channelName;
     private final String outClient;
+    private final ExecutorService executor;
+    private final GeneratedOutput output;
+    private final BuildMetrics metrics;
+
+    public ReactiveCodeServiceImpl(String serviceName, String packageName, String channelName, String outClient) {
+        this(serviceName, packageName, channelName, outClient, ForkJoinPool.commonPool(), new GeneratedOutput(), new BuildMetrics());
+    }
 
     @Inject
     public ReactiveCodeServiceImpl(
             @Named("serviceName") String serviceName,
             @Named("packageName") String packageName,
             @Named("channelName") String channelName,
-            @Named("outClient") String outClient
+            @Named("outClient") String outClient,
+            ExecutorService executor,
+            GeneratedOutput output,
+            BuildMetrics metrics
     ) {
         this.serviceName = serviceName;
         this.packageName = packageName;
         this.channelName = channelName;
         this.outClient = outClient;
+        this.executor = executor;
+        this.output = output;
+        this.metrics = metrics;
     }
 
     @Override
     public void generateSpringWebfluxConfig(Launcher launcher) {
+        generateSpringWebfluxConfig(launcher, name -> true);
+    }
+
+    @Override
+    public void generateSpringWebfluxConfig(Launcher launcher, Predicate<String> grpcClassFilter) {
         log.info("开始生成 Spring Webflux 配置类...");
         log.info("当前包名: {}", packageName);
 
         var factory = launcher.getFactory();
 
-        // 4. 遍历所有 Stub 类
-        launcher.getModel().getElements(e -> e instanceof CtClass).stream()
-                .map(c -> (CtClass<?>) c)
-                .filter(c -> c.getSimpleName().endsWith("Grpc"))
-                .forEach(clazz -> {
-                    buildStubMethod(clazz, factory);
-                });
+        // 4. 遍历所有 Stub 类；Spoon 的 Factory 不是线程安全的，建模按顺序执行
+        List<Unit> units;
+        try (var ignored = metrics.phase("spoon.transform")) {
+            units = launcher.getModel().getElements(e -> e instanceof CtClass).stream()
+                    .map(c -> (CtClass<?>) c)
+                    .filter(c -> c.getSimpleName().endsWith("Grpc"))
+                    .filter(c -> grpcClassFilter.test(c.getQualifiedName()))
+                    .sorted(Comparator.comparing(CtClass::getQualifiedName))
+                    .map(clazz -> new Unit(owner(clazz), buildStubMethod(clazz, factory)))
+                    .toList();
+
+            // 每个生成类使用独立的编译单元，避免打印时共享 import 状态
+            units.forEach(unit -> unit.types().forEach(type -> factory.CompilationUnit().getOrCreate(type)));
+        }
+        metrics.count("services", units.size());
+
+        // 5. 按服务并行打印，同一服务的配置类与客户端引用同一个 *Grpc 类，放在同一个任务里
+        var env = launcher.getEnvironment();
+        var futures = units.stream()
+                .map(unit -> CompletableFuture.runAsync(() -> unit.types().forEach(type -> print(env, type, unit.owner())), executor))
+                .toList();
+        try (var ignored = metrics.phase("spoon.print")) {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof UncheckedIOException io ? io : e;
+        }
 
-        var compilationUnit = factory.CompilationUnit().getOrCreate(packageName);
-        launcher.setOutputFilter(clazz -> {
-            var isOut = (clazz.getQualifiedName().startsWith(packageName) && (clazz.getQualifiedName().endsWith("GrpcConfig") || clazz.getQualifiedName().endsWith("GrpcClient")));
-            log.info("正在处理[{}]: {}", isOut, clazz.getQualifiedName());
-            compilationUnit.addDeclaredType(clazz);
-            return isOut;
-        });
+        log.info("GrpcClientConfig generated completed, {} services.", units.size());
+    }
 
-        launcher.prettyprint();
+    /**
+     * 一个 *Grpc 类生成的类型，owner 是生成该 *Grpc 类的 proto
+     */
+    private record Unit(String owner, List<CtType<?>> types) {
+    }
 
-        log.info("GrpcClientConfig generated completed.");
+    /**
+     * *Grpc 源文件在本次生成中由哪个 proto 产出，未知时为 null
+     */
+    private String owner(CtClass<?> clazz) {
+        var position = clazz.getPosition();
+        return position.isValidPosition() && position.getFile() != null ? output.owner(position.getFile().toPath()) : null;
     }
 
-    public void buildStubMethod(CtClass<?> clazz, Factory factory) {
+    private void print(Environment env, CtType<?> type, String owner) {
+        log.info("正在输出: {}", type.getQualifiedName());
+        var printer = env.createPrettyPrinter();
+        var source = printer.printCompilationUnit(type.getFactory().CompilationUnit().getOrCreate(type));
+        var file = Paths.get(outClient, type.getPackage().getQualifiedName().replace('.', '/'), type.getSimpleName() + ".java");
+        try {
+            output.write(file, source, owner);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 为单个 *Grpc 类生成配置类与客户端，返回这两个生成的类型
+     */
+    public List<CtType<?>> buildStubMethod(CtClass<?> clazz, Factory factory) {
         var qualifiedName = clazz.getQualifiedName();
         var simpleName = clazz.getSimpleName();
 
@@ -137,7 +206,14 @@ public class ReactiveCodeServiceImpl implements ReactiveCodeService {
                             executableReference,
                             arg1, arg2
                     );
-                    var returnStmt = factory.Code().createCtReturn(expr);
+                    // ReactorStubs.cached(...)：stub 只解析一次，通道失效后重新解析
+                    var stubs = factory.Type().createReference(packageName + ".ReactorStubs");
+                    var cached = factory.Code().createInvocation(
+                            factory.Code().createTypeAccess(stubs),
+                            factory.Executable().createReference(stubs, monoRef, "cached", List.of(monoRef)),
+                            expr
+                    );
+                    var returnStmt = factory.Code().createCtReturn(cached);
                     var statement = factory.Code().createCtBlock(returnStmt);
 
                     var returnTypeName = clazz.getQualifiedName() + "." + method.getType().getSimpleName();
@@ -152,7 +228,8 @@ public class ReactiveCodeServiceImpl implements ReactiveCodeService {
                     addMethod(factory, configClass, Strings.firstToLowerCase(clazz.getSimpleName().replaceAll("Service", "")+method.getSimpleName().replaceAll("new", "")) , param, statement, returnType);
                 });
 
-        ObserverToReactor.builder(factory, clazz, packageName, outClient).build();
+        var clientClass = ObserverToReactor.builder(factory, clazz, packageName, outClient).build().getClientClass();
+        return List.of(configClass, clientClass);
     }
 
     private static CtTypeReference<?> createManagedChannelType(Factory factory) {
@@ -0,0 +1,54 @@
+package io.osins.grpc.reactor.plugin.maven.uitls;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 生成单个 Java 文件时收集 import：先登记的类使用简单名，之后重名的类使用全限定名
+ */
+public final class JavaImports {
+    private final String currentPackage;
+    private final Map<String, String> imported = new TreeMap<>();
+
+    public JavaImports(String currentPackage, String className) {
+        this.currentPackage = currentPackage;
+        imported.put(className, qualify(currentPackage, className));
+    }
+
+    /**
+     * 登记类型并返回源码中应使用的名称
+     */
+    public String use(String packageName, String nestedName) {
+        var dot = nestedName.indexOf('.');
+        var top = dot < 0 ? nestedName : nestedName.substring(0, dot);
+        var qualifiedTop = qualify(packageName, top);
+
+        var existing = imported.putIfAbsent(top, qualifiedTop);
+        return existing == null || existing.equals(qualifiedTop) ? nestedName : qualify(packageName, nestedName);
+    }
+
+    public String use(String qualifiedName) {
+        var dot = qualifiedName.lastIndexOf('.');
+        return use(qualifiedName.substring(0, dot), qualifiedName.substring(dot + 1));
+    }
+
+    public String use(JavaNames.JavaType type) {
+        return use(type.packageName(), type.nestedName());
+    }
+
+    public List<String> imports() {
+        return imported.values().stream()
+                .filter(q -> {
+                    var dot = q.lastIndexOf('.');
+                    var pkg = dot < 0 ? "" : q.substring(0, dot);
+                    return !pkg.isEmpty() && !pkg.equals(currentPackage) && !pkg.equals("java.lang");
+                })
+                .sorted()
+                .toList();
+    }
+
+    private static String qualify(String packageName, String name) {
+        return packageName.isEmpty() ? name : packageName + "." + name;
+    }
+}
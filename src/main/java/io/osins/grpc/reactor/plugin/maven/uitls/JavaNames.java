@@ -0,0 +1,131 @@
+package io.osins.grpc.reactor.plugin.maven.uitls;
+
+import com.google.protobuf.DescriptorProtos;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按 protoc / protoc-gen-grpc-java 的命名规则，从 descriptor 推导生成的 Java 类名与方法名
+ */
+public final class JavaNames {
+    private static final Set<String> KEYWORDS = Set.of(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+            "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+            "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp", "super",
+            "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void", "volatile", "while",
+            "true", "false", "null");
+
+    /**
+     * Java 类型：包名 + 包内的（可能嵌套的）类名，例如 "Outer.Inner"
+     */
+    public record JavaType(String packageName, String nestedName) {
+        public String qualifiedName() {
+            return packageName.isEmpty() ? nestedName : packageName + "." + nestedName;
+        }
+    }
+
+    private final Map<String, JavaType> messages = new HashMap<>();
+
+    public JavaNames(List<DescriptorProtos.FileDescriptorProto> files) {
+        files.forEach(this::index);
+    }
+
+    /**
+     * 根据 proto 类型全名（可带前导点）查找生成的 Java 消息类
+     */
+    public JavaType message(String protoTypeName) {
+        var name = protoTypeName.startsWith(".") ? protoTypeName.substring(1) : protoTypeName;
+        var type = messages.get(name);
+        if (type == null)
+            throw new IllegalArgumentException("Unknown message type: " + protoTypeName);
+        return type;
+    }
+
+    private void index(DescriptorProtos.FileDescriptorProto file) {
+        var javaPackage = ProtoFiles.javaPackage(file);
+        var prefix = file.getOptions().getJavaMultipleFiles() ? "" : outerClassName(file) + ".";
+        var protoPrefix = file.getPackage().isEmpty() ? "" : file.getPackage() + ".";
+
+        file.getMessageTypeList().forEach(m -> index(m, protoPrefix, javaPackage, prefix));
+        file.getEnumTypeList().forEach(e -> messages.put(protoPrefix + e.getName(), new JavaType(javaPackage, prefix + e.getName())));
+    }
+
+    private void index(DescriptorProtos.DescriptorProto message, String protoPrefix, String javaPackage, String javaPrefix) {
+        var nested = javaPrefix + message.getName();
+        messages.put(protoPrefix + message.getName(), new JavaType(javaPackage, nested));
+
+        message.getNestedTypeList().forEach(m -> index(m, protoPrefix + message.getName() + ".", javaPackage, nested + "."));
+        message.getEnumTypeList().forEach(e -> messages.put(protoPrefix + message.getName() + "." + e.getName(), new JavaType(javaPackage, nested + "." + e.getName())));
+    }
+
+    /**
+     * 外部类名：java_outer_classname，否则由文件名转驼峰，与顶层类型重名时追加 OuterClass
+     */
+    public static String outerClassName(DescriptorProtos.FileDescriptorProto file) {
+        if (file.getOptions().hasJavaOuterClassname())
+            return file.getOptions().getJavaOuterClassname();
+
+        var base = file.getName().substring(file.getName().lastIndexOf('/') + 1).replaceAll("\\.proto$", "");
+        var name = underscoresToCamelCase(base);
+
+        var conflict = file.getMessageTypeList().stream().anyMatch(m -> m.getName().equals(name))
+                || file.getEnumTypeList().stream().anyMatch(e -> e.getName().equals(name))
+                || file.getServiceList().stream().anyMatch(s -> s.getName().equals(name));
+        return conflict ? name + "OuterClass" : name;
+    }
+
+    private static String underscoresToCamelCase(String input) {
+        var result = new StringBuilder();
+        var capNext = true;
+        for (var c : input.toCharArray()) {
+            if (Character.isLowerCase(c)) {
+                result.append(capNext ? Character.toUpperCase(c) : c);
+                capNext = false;
+            } else if (Character.isUpperCase(c)) {
+                result.append(c);
+                capNext = false;
+            } else if (Character.isDigit(c)) {
+                result.append(c);
+                capNext = true;
+            } else {
+                capNext = true;
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * grpc-java 生成的 stub 方法名，例如 Find_all -> findAll
+     */
+    public static String stubMethodName(String rpcName) {
+        var name = mixedCase(rpcName, false);
+        return KEYWORDS.contains(name) ? name + "_" : name;
+    }
+
+    /**
+     * *Grpc 类中获取 MethodDescriptor 的静态方法名，例如 getFindAllMethod
+     */
+    public static String methodGetterName(String rpcName) {
+        return "get" + mixedCase(rpcName, true) + "Method";
+    }
+
+    private static String mixedCase(String word, boolean upperFirst) {
+        var result = new StringBuilder();
+        result.append(upperFirst ? Character.toUpperCase(word.charAt(0)) : Character.toLowerCase(word.charAt(0)));
+        var afterUnderscore = false;
+        for (var i = 1; i < word.length(); i++) {
+            var c = word.charAt(i);
+            if (c == '_') {
+                afterUnderscore = true;
+            } else {
+                result.append(afterUnderscore ? Character.toUpperCase(c) : c);
+                afterUnderscore = false;
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,130 @@
+package io.osins.grpc.reactor.plugin.maven.uitls;
+
+import com.google.protobuf.DescriptorProtos;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public final class ProtoFiles {
+    private static final Pattern IMPORT = Pattern.compile("^\\s*import\\s+(?:public\\s+|weak\\s+)?\"([^\"]+)\"\\s*;", Pattern.MULTILINE);
+
+    /**
+     * 插件自带的选项定义，相对 proto_path；import 它即可使用 option (osins.grpc.deadline_ms)，不需要自己声明 extend
+     */
+    public static final String OPTIONS_PROTO = "osins/grpc/options.proto";
+
+    /**
+     * 方法选项 deadline_ms 的字段号，与 OPTIONS_PROTO 中的声明一致
+     */
+    public static final int DEADLINE_OPTION = 51000;
+
+    /**
+     * 读取 proto 源码中的 import 路径（相对 proto_path）
+     */
+    public static List<String> imports(String content) {
+        var result = new ArrayList<String>();
+        var matcher = IMPORT.matcher(content);
+        while (matcher.find()) {
+            result.add(matcher.group(1));
+        }
+        return result;
+    }
+
+    public static List<String> imports(Path file) throws IOException {
+        return imports(Files.readString(file));
+    }
+
+    /**
+     * 是否有文件 import 了 name
+     */
+    public static boolean imported(Collection<Path> files, String name) throws IOException {
+        for (var file : files) {
+            if (imports(file).contains(name))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * 方法选项中的 deadline_ms，未设置时为 0。描述符不带扩展注册表解析，选项值在 MethodOptions 的未知字段中
+     */
+    public static long deadlineMillis(DescriptorProtos.MethodDescriptorProto method) {
+        var values = method.getOptions().getUnknownFields().getField(DEADLINE_OPTION).getVarintList();
+        return values.isEmpty() ? 0 : Math.max(values.getLast(), 0);
+    }
+
+    /**
+     * 生成代码所在的 Java 包：优先 java_package，否则使用 proto package
+     */
+    public static String javaPackage(DescriptorProtos.FileDescriptorProto file) {
+        return file.getOptions().hasJavaPackage() ? file.getOptions().getJavaPackage() : file.getPackage();
+    }
+
+    /**
+     * 文件中每个 service 对应的 *Grpc 类全限定名
+     */
+    public static List<String> grpcClassNames(DescriptorProtos.FileDescriptorProto file) {
+        var javaPackage = javaPackage(file);
+        return file.getServiceList().stream()
+                .map(s -> (javaPackage.isEmpty() ? "" : javaPackage + ".") + s.getName() + "Grpc")
+                .toList();
+    }
+
+    /**
+     * protoc 的 java 与 grpc-java 插件为文件生成的源码，相对输出目录，使用 / 分隔
+     */
+    public static Set<String> javaSources(DescriptorProtos.FileDescriptorProto file) {
+        var javaPackage = javaPackage(file);
+        var dir = javaPackage.isEmpty() ? "" : javaPackage.replace('.', '/') + "/";
+        var sources = new LinkedHashSet<String>();
+        sources.add(dir + JavaNames.outerClassName(file) + ".java");
+        if (file.getOptions().getJavaMultipleFiles()) {
+            file.getMessageTypeList().forEach(m -> {
+                sources.add(dir + m.getName() + ".java");
+                sources.add(dir + m.getName() + "OrBuilder.java");
+            });
+            file.getEnumTypeList().forEach(e -> sources.add(dir + e.getName() + ".java"));
+        }
+        file.getServiceList().forEach(s -> sources.add(dir + s.getName() + "Grpc.java"));
+        return sources;
+    }
+
+    public static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String sha256(Path file) throws IOException {
+        return sha256(Files.readAllBytes(file));
+    }
+
+    /**
+     * 流式计算文件摘要，适用于 protoc 等较大的二进制文件
+     */
+    public static String digest(Path file, String algorithm) throws IOException {
+        try (var in = Files.newInputStream(file)) {
+            var digest = MessageDigest.getInstance(algorithm);
+            var buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
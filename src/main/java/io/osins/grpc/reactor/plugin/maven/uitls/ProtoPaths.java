@@ -0,0 +1,88 @@
+package io.osins.grpc.reactor.plugin.maven.uitls;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 编译使用的 proto_path：工程的 proto 源码目录与依赖 jar 的解出目录，按 protoc 的查找顺序排列。
+ * descriptor 中的文件名与 import 语句都是相对 proto_path 的路径，使用 / 分隔；
+ * 不在任何 proto_path 下的文件以自身所在目录作为 proto_path。
+ */
+public final class ProtoPaths {
+    private static final ProtoPaths NONE = new ProtoPaths(List.of());
+
+    private final List<Path> roots;
+
+    private ProtoPaths(List<Path> roots) {
+        this.roots = roots;
+    }
+
+    public static ProtoPaths of(Collection<Path> roots) {
+        return new ProtoPaths(roots.stream().map(ProtoPaths::normalize).distinct().toList());
+    }
+
+    /**
+     * 没有公共 proto_path，每个文件按所在目录解析 import
+     */
+    public static ProtoPaths none() {
+        return NONE;
+    }
+
+    public List<Path> roots() {
+        return roots;
+    }
+
+    /**
+     * 文件所在的 proto_path：包含它的最深的根目录，不在任何根目录下时为文件所在目录
+     */
+    public Path root(Path file) {
+        var normalized = normalize(file);
+        Path best = null;
+        for (var root : roots) {
+            if (normalized.startsWith(root) && !normalized.equals(root)
+                    && (best == null || root.getNameCount() > best.getNameCount()))
+                best = root;
+        }
+        return best != null ? best : normalized.getParent();
+    }
+
+    /**
+     * 相对 proto_path 的文件名，即 protoc 与 descriptor 使用的名称
+     */
+    public String name(Path file) {
+        var normalized = normalize(file);
+        return root(normalized).relativize(normalized).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * 传给 protoc 的 --proto_path：全部根目录，root 不在其中时追加在最后
+     */
+    public List<Path> search(Path root) {
+        if (root == null || roots.contains(normalize(root)))
+            return roots;
+        var search = new ArrayList<>(roots);
+        search.add(normalize(root));
+        return search;
+    }
+
+    /**
+     * 按 search(root) 的顺序查找 import，找不到时为空（例如 protoc 自带的 google/protobuf 文件）
+     */
+    public Optional<Path> resolve(String name, Path root) {
+        for (var dir : search(root)) {
+            var file = dir.resolve(name).normalize();
+            if (Files.isRegularFile(file))
+                return Optional.of(file);
+        }
+        return Optional.empty();
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
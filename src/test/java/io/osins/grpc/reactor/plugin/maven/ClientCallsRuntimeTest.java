@@ -0,0 +1,469 @@
+package io.osins.grpc.reactor.plugin.maven;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.AbstractStub;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import io.osins.grpc.reactor.plugin.maven.utils.GeneratedRuntime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 编译生成的 ReactorClientCalls 与 ReactorStubs，对进程内 gRPC 服务端运行
+ */
+class ClientCallsRuntimeTest {
+    private static final String SERVICE = "test.Echo";
+    private static final MethodDescriptor.Marshaller<String> STRING = new MethodDescriptor.Marshaller<>() {
+        @Override
+        public InputStream stream(String value) {
+            return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String parse(InputStream stream) {
+            try {
+                return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private static final MethodDescriptor<String, String> UNARY = method(MethodDescriptor.MethodType.UNARY, "Unary");
+    private static final MethodDescriptor<String, String> HANG = method(MethodDescriptor.MethodType.UNARY, "Hang");
+    private static final MethodDescriptor<String, String> COUNT = method(MethodDescriptor.MethodType.SERVER_STREAMING, "Count");
+    private static final MethodDescriptor<String, String> JOIN = method(MethodDescriptor.MethodType.CLIENT_STREAMING, "Join");
+    private static final MethodDescriptor<String, String> ECHO = method(MethodDescriptor.MethodType.BIDI_STREAMING, "Echo");
+    private static final MethodDescriptor<String, String> REVERSE = method(MethodDescriptor.MethodType.BIDI_STREAMING, "Reverse");
+
+    @TempDir
+    static Path generated;
+
+    private static Method unary;
+    private static Method serverStreaming;
+    private static Method clientStreaming;
+    private static Method bidiStreaming;
+    private static Method cached;
+    private static Method observerUnary;
+
+    private final AtomicInteger sent = new AtomicInteger();
+    private final CountDownLatch serverCancelled = new CountDownLatch(1);
+    private final List<Throwable> dropped = new CopyOnWriteArrayList<>();
+    private Server server;
+    private ManagedChannel channel;
+
+    /**
+     * 只用于发起调用的 stub，生成的代码只读取它的 Channel 与 CallOptions
+     */
+    static final class TestStub extends AbstractStub<TestStub> {
+        TestStub(Channel channel, CallOptions options) {
+            super(channel, options);
+        }
+
+        @Override
+        protected TestStub build(Channel channel, CallOptions options) {
+            return new TestStub(channel, options);
+        }
+    }
+
+    private static MethodDescriptor<String, String> method(MethodDescriptor.MethodType type, String name) {
+        return MethodDescriptor.<String, String>newBuilder()
+                .setType(type)
+                .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE, name))
+                .setRequestMarshaller(STRING)
+                .setResponseMarshaller(STRING)
+                .build();
+    }
+
+    @BeforeAll
+    static void compileGenerated() throws Exception {
+        var loader = GeneratedRuntime.compile(generated);
+        var calls = loader.loadClass("com.example.ReactorClientCalls");
+        var stubs = loader.loadClass("com.example.ReactorStubs");
+        unary = calls.getMethod("unary", Mono.class, MethodDescriptor.class, Object.class, long.class);
+        serverStreaming = calls.getMethod("serverStreaming", Mono.class, MethodDescriptor.class, Object.class, long.class);
+        clientStreaming = calls.getMethod("clientStreaming", Mono.class, MethodDescriptor.class, Publisher.class, long.class);
+        bidiStreaming = calls.getMethod("bidiStreaming", Mono.class, MethodDescriptor.class, Publisher.class, long.class);
+        cached = stubs.getMethod("cached", Mono.class);
+        observerUnary = stubs.getMethod("unary", Mono.class, MethodDescriptor.class, Object.class, long.class);
+    }
+
+    @BeforeEach
+    void startServer() throws Exception {
+        Hooks.onErrorDropped(dropped::add);
+
+        var name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ServerServiceDefinition.builder(SERVICE)
+                        .addMethod(UNARY, ServerCalls.asyncUnaryCall((String request, StreamObserver<String> response) -> {
+                            if (request.isEmpty()) {
+                                response.onError(Status.NOT_FOUND.withDescription("empty").asRuntimeException());
+                                return;
+                            }
+                            response.onNext("echo:" + request);
+                            response.onCompleted();
+                        }))
+                        .addMethod(HANG, ServerCalls.asyncUnaryCall((String request, StreamObserver<String> response) ->
+                                ((ServerCallStreamObserver<String>) response).setOnCancelHandler(serverCancelled::countDown)))
+                        .addMethod(COUNT, ServerCalls.asyncServerStreamingCall(this::count))
+                        .addMethod(JOIN, ServerCalls.asyncClientStreamingCall(this::join))
+                        .addMethod(ECHO, ServerCalls.asyncBidiStreamingCall(this::echo))
+                        .addMethod(REVERSE, ServerCalls.asyncBidiStreamingCall(this::reverse))
+                        .build())
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        Hooks.resetOnErrorDropped();
+    }
+
+    /**
+     * 按客户端的需求发送 0..n-1，n 为 0 时不结束
+     */
+    private void count(String request, StreamObserver<String> response) {
+        var observer = (ServerCallStreamObserver<String>) response;
+        var total = Integer.parseInt(request);
+        var completed = new AtomicBoolean();
+        observer.setOnCancelHandler(serverCancelled::countDown);
+        observer.setOnReadyHandler(() -> {
+            while (observer.isReady() && (total == 0 || sent.get() < total))
+                observer.onNext(String.valueOf(sent.getAndIncrement()));
+            if (sent.get() == total && completed.compareAndSet(false, true))
+                observer.onCompleted();
+        });
+    }
+
+    private StreamObserver<String> join(StreamObserver<String> response) {
+        var joined = new StringBuilder();
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(String value) {
+                joined.append(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                serverCancelled.countDown();
+            }
+
+            @Override
+            public void onCompleted() {
+                response.onNext(joined.toString());
+                response.onCompleted();
+            }
+        };
+    }
+
+    private StreamObserver<String> echo(StreamObserver<String> response) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(String value) {
+                response.onNext("echo:" + value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                serverCancelled.countDown();
+            }
+
+            @Override
+            public void onCompleted() {
+                response.onCompleted();
+            }
+        };
+    }
+
+    /**
+     * 请求流结束后才按相反顺序返回
+     */
+    private StreamObserver<String> reverse(StreamObserver<String> response) {
+        var received = new ArrayList<String>();
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(String value) {
+                received.add(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                serverCancelled.countDown();
+            }
+
+            @Override
+            public void onCompleted() {
+                for (var i = received.size() - 1; i >= 0; i--)
+                    response.onNext(received.get(i));
+                response.onCompleted();
+            }
+        };
+    }
+
+    private Mono<TestStub> stub() {
+        return Mono.just(new TestStub(channel, CallOptions.DEFAULT));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline)
+            Thread.sleep(10);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T invoke(Method method, Object... arguments) throws Exception {
+        return (T) method.invoke(null, arguments);
+    }
+
+    @Test
+    void testUnary() throws Exception {
+        Mono<String> call = invoke(unary, stub(), UNARY, "ping", 0L);
+        assertEquals("echo:ping", call.block(Duration.ofSeconds(5)));
+        // 可以重复订阅，每次订阅发起一次调用
+        assertEquals("echo:ping", call.block(Duration.ofSeconds(5)));
+
+        Mono<TestStub> stub = invoke(cached, stub());
+        Mono<String> viaCache = invoke(unary, stub, UNARY, "cached", 0L);
+        assertEquals("echo:cached", viaCache.block(Duration.ofSeconds(5)));
+        assertEquals("echo:cached", viaCache.block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void testErrorStatus() throws Exception {
+        Mono<String> call = invoke(unary, stub(), UNARY, "", 0L);
+        var e = assertThrows(StatusRuntimeException.class, () -> call.block(Duration.ofSeconds(5)));
+        assertEquals(Status.Code.NOT_FOUND, e.getStatus().getCode());
+        assertTrue(dropped.isEmpty(), dropped::toString);
+    }
+
+    @Test
+    void testNewCallFailure() throws Exception {
+        var broken = new Channel() {
+            @Override
+            public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions options) {
+                throw new IllegalStateException("broken channel");
+            }
+
+            @Override
+            public String authority() {
+                return "broken";
+            }
+        };
+        // 创建调用失败后 stub 发布者的结束信号不再作为第二个错误丢弃
+        Mono<String> call = invoke(unary, Mono.just(new TestStub(broken, CallOptions.DEFAULT)).hide(), UNARY, "ping", 0L);
+        var e = assertThrows(IllegalStateException.class, () -> call.block(Duration.ofSeconds(5)));
+        assertEquals("broken channel", e.getMessage());
+        assertTrue(dropped.isEmpty(), dropped::toString);
+    }
+
+    @Test
+    void testServerStreaming() throws Exception {
+        Flux<String> call = invoke(serverStreaming, stub(), COUNT, "5", 0L);
+        assertEquals(List.of("0", "1", "2", "3", "4"), call.collectList().block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void testServerStreamingBackpressure() throws Exception {
+        Flux<String> call = invoke(serverStreaming, stub(), COUNT, "100", 0L);
+        var received = new CopyOnWriteArrayList<String>();
+        var subscriber = new BaseSubscriber<String>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(3);
+            }
+
+            @Override
+            protected void hookOnNext(String value) {
+                received.add(value);
+            }
+        };
+        call.subscribe(subscriber);
+
+        // 服务端只能发送下游已请求的消息
+        await(() -> received.size() == 3);
+        assertEquals(List.of("0", "1", "2"), received);
+        assertEquals(3, sent.get());
+
+        subscriber.request(2);
+        await(() -> received.size() == 5);
+        assertEquals(List.of("0", "1", "2", "3", "4"), received);
+        assertEquals(5, sent.get());
+
+        subscriber.dispose();
+        assertTrue(serverCancelled.await(5, TimeUnit.SECONDS));
+        assertTrue(dropped.isEmpty(), dropped::toString);
+    }
+
+    @Test
+    void testCancelDoesNotDropErrors() throws Exception {
+        Flux<String> call = invoke(serverStreaming, stub(), COUNT, "0", 0L);
+        assertEquals(List.of("0", "1"), call.take(2).collectList().block(Duration.ofSeconds(5)));
+
+        assertTrue(serverCancelled.await(5, TimeUnit.SECONDS));
+        // gRPC 以 CANCELLED 结束被取消的调用，不作为丢弃的错误上报
+        assertTrue(dropped.isEmpty(), dropped::toString);
+    }
+
+    @Test
+    void testTimeoutCancelsCall() throws Exception {
+        Mono<String> call = invoke(unary, stub(), HANG, "ping", 0L);
+        var e = assertThrows(RuntimeException.class, () -> call.timeout(Duration.ofMillis(100)).block(Duration.ofSeconds(5)));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+
+        assertTrue(serverCancelled.await(5, TimeUnit.SECONDS));
+        assertTrue(dropped.isEmpty(), dropped::toString);
+    }
+
+    @Test
+    void testDeadline() throws Exception {
+        Mono<String> call = invoke(unary, stub(), HANG, "ping", 100L);
+        var e = assertThrows(StatusRuntimeException.class, () -> call.block(Duration.ofSeconds(5)));
+        assertEquals(Status.Code.DEADLINE_EXCEEDED, e.getStatus().getCode());
+        assertTrue(serverCancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testObserverUnary() throws Exception {
+        Mono<TestStub> stub = invoke(cached, stub());
+        Mono<String> call = invoke(observerUnary, stub, UNARY, "ping", 0L);
+        assertEquals("echo:ping", call.block(Duration.ofSeconds(5)));
+        assertEquals("echo:ping", call.block(Duration.ofSeconds(5)));
+
+        Mono<String> missing = invoke(observerUnary, stub, UNARY, "", 0L);
+        var e = assertThrows(StatusRuntimeException.class, () -> missing.block(Duration.ofSeconds(5)));
+        assertEquals(Status.Code.NOT_FOUND, e.getStatus().getCode());
+    }
+
+    @Test
+    void testObserverTimeoutCancelsCall() throws Exception {
+        Mono<String> call = invoke(observerUnary, stub(), HANG, "ping", 0L);
+        var e = assertThrows(RuntimeException.class, () -> call.timeout(Duration.ofMillis(100)).block(Duration.ofSeconds(5)));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+
+        assertTrue(serverCancelled.await(5, TimeUnit.SECONDS));
+        // 取消后 gRPC 回报的 CANCELLED 不作为丢弃的错误上报
+        assertTrue(dropped.isEmpty(), dropped::toString);
+    }
+
+    @Test
+    void testObserverDeadline() throws Exception {
+        Mono<String> call = invoke(observerUnary, stub(), HANG, "ping", 100L);
+        var e = assertThrows(StatusRuntimeException.class, () -> call.block(Duration.ofSeconds(5)));
+        assertEquals(Status.Code.DEADLINE_EXCEEDED, e.getStatus().getCode());
+        assertTrue(serverCancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testClientStreaming() throws Exception {
+        Mono<String> call = invoke(clientStreaming, stub(), JOIN, Flux.just("a", "b", "c"), 0L);
+        assertEquals("abc", call.block(Duration.ofSeconds(5)));
+
+        // 请求流出错时取消调用并以原始错误结束
+        Mono<String> failing = invoke(clientStreaming, stub(), JOIN, Flux.concat(Flux.just("a"), Flux.error(new IllegalStateException("broken"))), 0L);
+        var e = assertThrows(IllegalStateException.class, () -> failing.block(Duration.ofSeconds(5)));
+        assertEquals("broken", e.getMessage());
+        assertTrue(serverCancelled.await(5, TimeUnit.SECONDS));
+        assertTrue(dropped.isEmpty(), dropped::toString);
+    }
+
+    @Test
+    void testBidiStreaming() throws Exception {
+        Flux<String> call = invoke(bidiStreaming, stub(), ECHO, Flux.range(0, 50).map(String::valueOf), 0L);
+        var responses = call.collectList().block(Duration.ofSeconds(5));
+        assertEquals(50, responses.size());
+        assertEquals("echo:0", responses.get(0));
+        assertEquals("echo:49", responses.get(49));
+
+        // 下游取消同时取消请求流
+        var requestsCancelled = new CountDownLatch(1);
+        var requests = Flux.<String, Integer>generate(() -> 0, (i, sink) -> {
+            sink.next(String.valueOf(i));
+            return i + 1;
+        }).doOnCancel(requestsCancelled::countDown);
+        Flux<String> endless = invoke(bidiStreaming, stub(), ECHO, requests, 0L);
+        assertEquals(List.of("echo:0", "echo:1"), endless.take(2).collectList().block(Duration.ofSeconds(5)));
+        assertTrue(requestsCancelled.await(5, TimeUnit.SECONDS));
+        assertTrue(serverCancelled.await(5, TimeUnit.SECONDS));
+        assertTrue(dropped.isEmpty(), dropped::toString);
+    }
+
+    @Test
+    void testRequestStreamIsSentOnDemand() throws Exception {
+        var requested = new CopyOnWriteArrayList<Long>();
+        var requests = Flux.range(0, 200).map(String::valueOf).doOnRequest(requested::add);
+        Mono<String> call = invoke(clientStreaming, stub(), JOIN, requests, 0L);
+
+        var expected = IntStream.range(0, 200).mapToObj(String::valueOf).collect(Collectors.joining());
+        assertEquals(expected, call.block(Duration.ofSeconds(5)));
+        // 每次只向上游请求一条，不预取请求流
+        assertTrue(requested.size() >= 200, requested::toString);
+        assertTrue(requested.stream().allMatch(n -> n == 1), requested::toString);
+    }
+
+    @Test
+    void testEmptyRequestStream() throws Exception {
+        Mono<String> upload = invoke(clientStreaming, stub(), JOIN, Flux.<String>empty(), 0L);
+        assertEquals("", upload.block(Duration.ofSeconds(5)));
+
+        Flux<String> exchange = invoke(bidiStreaming, stub(), ECHO, Flux.<String>empty(), 0L);
+        assertEquals(List.of(), exchange.collectList().block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void testBidiResponsesAfterHalfClose() throws Exception {
+        Flux<String> call = invoke(bidiStreaming, stub(), REVERSE, Flux.just("a", "b", "c"), 0L);
+        assertEquals(List.of("c", "b", "a"), call.collectList().block(Duration.ofSeconds(5)));
+
+        // 请求流出错时以原始错误结束
+        Flux<String> failing = invoke(bidiStreaming, stub(), REVERSE, Flux.concat(Flux.just("a"), Flux.error(new IllegalStateException("broken"))), 0L);
+        var e = assertThrows(IllegalStateException.class, () -> failing.collectList().block(Duration.ofSeconds(5)));
+        assertEquals("broken", e.getMessage());
+        assertTrue(serverCancelled.await(5, TimeUnit.SECONDS));
+        assertTrue(dropped.isEmpty(), dropped::toString);
+    }
+}
@@ -0,0 +1,174 @@
+package io.osins.grpc.reactor.plugin.maven;
+
+import com.google.inject.Guice;
+import com.google.protobuf.DescriptorProtos;
+import io.osins.grpc.reactor.plugin.maven.module.ReactiveCodeModule;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorCodeService;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorRegistry;
+import io.osins.grpc.reactor.plugin.maven.service.ProtoSourceParser;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoPaths;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@Slf4j
+class DescriptorCodeGenTest {
+    private final Path protoDir = Path.of(System.getProperty("user.dir"), "src/test/resources/grpc/proto");
+
+    @TempDir
+    Path outClient;
+
+    @Test
+    void testGenerateFromDescriptors() throws Exception {
+        var protos = new ProtoSourceParser().parse(List.of(protoDir.resolve("role.service.proto")));
+
+        var injector = Guice.createInjector(new ReactiveCodeModule(mock(MavenProject.class), "/protobuf", "test-grpc", "com.example", "authGrpcChannel", outClient.toString(), "")
+                .setResolve("io.grpc:protoc-gen-grpc-java:linux-x86_64:exe:1.76.0"));
+        injector.getInstance(DescriptorCodeService.class).generate(DescriptorRegistry.of(protos), name -> true);
+
+        var client = outClient.resolve("com/example/SysRoleGrpcClient.java");
+        var config = outClient.resolve("com/example/config/SysRoleServiceGrpcConfig.java");
+        assertTrue(Files.exists(client));
+        assertTrue(Files.exists(config));
+
+        var clientCode = Files.readString(client);
+        log.info("client:\n{}", clientCode);
+        assertTrue(clientCode.contains("private final Mono<SysRoleServiceGrpc.SysRoleServiceStub> sysRoleServiceStub;"));
+        assertTrue(clientCode.contains("public Mono<SysRoleResponse> findById(FindByIdRequest request)"));
+        assertTrue(clientCode.contains("return ReactorStubs.unary(sysRoleServiceStub, SysRoleServiceGrpc.getFindAllMethod(), Empty.getDefaultInstance(), findAllDeadline);"));
+        assertFalse(clientCode.contains("Observer"));
+
+        var configCode = Files.readString(config);
+        log.info("config:\n{}", configCode);
+        assertTrue(configCode.contains("reactorSysRoleGrpcStub(Mono<ManagedChannel> reactorAuthGrpcChannel)"));
+        assertTrue(configCode.contains("StubUtils.newAsyncStub(reactorAuthGrpcChannel, SysRoleServiceGrpc::newStub)"));
+        assertTrue(configCode.contains("return ReactorStubs.cached(StubUtils.newAsyncStub("));
+        assertTrue(configCode.contains("import com.example.ReactorStubs;"));
+        assertTrue(Files.exists(outClient.resolve("com/example/ReactorStubs.java")));
+    }
+
+    @Test
+    void testGenerateDirectCalls() throws Exception {
+        var protos = new ProtoSourceParser().parse(List.of(protoDir.resolve("role.service.proto")));
+
+        var injector = Guice.createInjector(new ReactiveCodeModule(mock(MavenProject.class), "/protobuf", "test-grpc", "com.example", "authGrpcChannel", outClient.toString(), "")
+                .setClientMode("call"));
+        injector.getInstance(DescriptorCodeService.class).generate(DescriptorRegistry.of(protos), name -> true);
+
+        var clientCode = Files.readString(outClient.resolve("com/example/SysRoleGrpcClient.java"));
+        log.info("client:\n{}", clientCode);
+        assertTrue(clientCode.contains("return ReactorClientCalls.unary(sysRoleServiceStub, SysRoleServiceGrpc.getFindByIdMethod(), request, findByIdDeadline);"));
+        assertTrue(clientCode.contains("return ReactorClientCalls.unary(sysRoleServiceStub, SysRoleServiceGrpc.getFindAllMethod(), Empty.getDefaultInstance(), findAllDeadline);"));
+        assertFalse(clientCode.contains("Observer"));
+        assertTrue(Files.exists(outClient.resolve("com/example/ReactorClientCalls.java")));
+    }
+
+    @Test
+    void testGenerateServerStreaming() throws Exception {
+        var protos = new ProtoSourceParser().parse(List.of(protoDir.resolve("user.authority.service.proto")));
+
+        var injector = Guice.createInjector(new ReactiveCodeModule(mock(MavenProject.class), "/protobuf", "test-grpc", "com.example", "authGrpcChannel", outClient.toString(), ""));
+        injector.getInstance(DescriptorCodeService.class).generate(DescriptorRegistry.of(protos), name -> true);
+
+        var clientCode = Files.readString(outClient.resolve("com/example/UserAuthorityGrpcClient.java"));
+        log.info("client:\n{}", clientCode);
+        assertTrue(clientCode.contains("import reactor.core.publisher.Flux;"));
+        assertTrue(clientCode.contains("public Flux<UserResponse> loadUsersByIds(LoadUsersByIdsRequest request)"));
+        assertTrue(clientCode.contains("return ReactorClientCalls.serverStreaming(userAuthorityServiceStub, UserAuthorityServiceGrpc.getLoadUsersByIdsMethod(), request, loadUsersByIdsDeadline);"));
+        // 一元方法仍使用 observer 模式
+        assertTrue(clientCode.contains("return ReactorStubs.unary(userAuthorityServiceStub, UserAuthorityServiceGrpc.getLoadUserByIdMethod(), request, loadUserByIdDeadline);"));
+        assertTrue(Files.exists(outClient.resolve("com/example/ReactorClientCalls.java")));
+    }
+
+    @Test
+    void testGenerateRequestStreaming() throws Exception {
+        var protos = new ProtoSourceParser().parse(List.of(protoDir.resolve("streaming.service.proto")));
+
+        var injector = Guice.createInjector(new ReactiveCodeModule(mock(MavenProject.class), "/protobuf", "test-grpc", "com.example", "authGrpcChannel", outClient.toString(), ""));
+        injector.getInstance(DescriptorCodeService.class).generate(DescriptorRegistry.of(protos), name -> true);
+
+        var clientCode = Files.readString(outClient.resolve("com/example/StreamingGrpcClient.java"));
+        log.info("client:\n{}", clientCode);
+        assertTrue(clientCode.contains("public Mono<UploadResponse> uploadItems(Flux<ItemRequest> requests)"));
+        assertTrue(clientCode.contains("return ReactorClientCalls.clientStreaming(streamingServiceStub, StreamingServiceGrpc.getUploadItemsMethod(), requests, uploadItemsDeadline);"));
+        assertTrue(clientCode.contains("public Flux<ItemResponse> exchangeItems(Flux<ItemRequest> requests)"));
+        assertTrue(clientCode.contains("return ReactorClientCalls.bidiStreaming(streamingServiceStub, StreamingServiceGrpc.getExchangeItemsMethod(), requests, exchangeItemsDeadline);"));
+        assertTrue(clientCode.contains("return ReactorClientCalls.serverStreaming(streamingServiceStub, StreamingServiceGrpc.getListItemsMethod(), request, listItemsDeadline);"));
+        assertTrue(clientCode.contains("public Mono<ItemResponse> findItem(ItemRequest request)"));
+    }
+
+    @Test
+    void testGenerateDeadlines(@TempDir Path protos) throws Exception {
+        var proto = protos.resolve("deadline.service.proto");
+        Files.writeString(proto, """
+                syntax = "proto3";
+                package demo;
+                option java_multiple_files = true;
+                option java_package = "com.example.demo";
+
+                import "osins/grpc/options.proto";
+
+                message PingRequest {
+                  string text = 1;
+                }
+
+                message PingResponse {
+                  string text = 1;
+                }
+
+                service DemoService {
+                  rpc Ping(PingRequest) returns (PingResponse) {
+                    option (osins.grpc.deadline_ms) = 3000;
+                  }
+                  rpc Echo(PingRequest) returns (PingResponse);
+                }
+                """);
+
+        var injector = Guice.createInjector(new ReactiveCodeModule(mock(MavenProject.class), "/protobuf", "test-grpc", "com.example", "authGrpcChannel", outClient.toString(), "")
+                .setClientMode("call"));
+        // 插件自带的 options.proto 在 proto_path 上
+        var protoPaths = ProtoPaths.of(List.of(protos, Path.of(System.getProperty("user.dir"), "src/main/resources/proto")));
+        injector.getInstance(DescriptorCodeService.class).generate(DescriptorRegistry.of(new ProtoSourceParser().parse(List.of(proto), protoPaths)), name -> true);
+
+        var clientCode = Files.readString(outClient.resolve("com/example/DemoGrpcClient.java"));
+        log.info("client:\n{}", clientCode);
+        // 截止时间由构造方法注入 final 字段
+        assertTrue(clientCode.contains("private final long pingDeadline;"));
+        assertTrue(clientCode.contains("@Value(\"${grpc.client.deadlines.demo.DemoService.Ping:3000}\") long pingDeadline"));
+        assertTrue(clientCode.contains("@Value(\"${grpc.client.deadlines.demo.DemoService.Echo:0}\") long echoDeadline"));
+        assertTrue(clientCode.contains("this.pingDeadline = pingDeadline;"));
+        assertFalse(clientCode.contains("RequiredArgsConstructor"));
+        assertTrue(clientCode.contains("return ReactorClientCalls.unary(demoServiceStub, DemoServiceGrpc.getPingMethod(), request, pingDeadline);"));
+    }
+
+    @Test
+    void testGenerateBundle(@TempDir Path resources) throws Exception {
+        var parser = new ProtoSourceParser();
+        var role = DescriptorRegistry.of(parser.parse(List.of(protoDir.resolve("role.service.proto"))), List.of("role.service.proto"));
+        var permission = DescriptorRegistry.of(parser.parse(List.of(protoDir.resolve("permission.service.proto"))), List.of("permission.service.proto"));
+
+        var injector = Guice.createInjector(new ReactiveCodeModule(mock(MavenProject.class), "/protobuf", "test-grpc", "com.example", "authGrpcChannel", outClient.toString(), ""));
+        var service = injector.getInstance(DescriptorCodeService.class);
+        service.generateBundle(role, List.of("role.service.proto"), resources);
+        // 第二次只编译了 permission，role 取自上一次的资源
+        service.generateBundle(permission, List.of("role.service.proto", "permission.service.proto"), resources);
+
+        var bundle = DescriptorProtos.FileDescriptorSet.parseFrom(Files.readAllBytes(resources.resolve("com/example/grpc-descriptors.desc")));
+        var names = bundle.getFileList().stream().map(DescriptorProtos.FileDescriptorProto::getName).toList();
+        assertEquals(names.size(), names.stream().distinct().count());
+        assertTrue(names.containsAll(List.of("commons.proto", "role.service.proto", "permission.service.proto")));
+        assertTrue(names.indexOf("commons.proto") < names.indexOf("role.service.proto"));
+
+        var accessor = Files.readString(outClient.resolve("com/example/GrpcDescriptors.java"));
+        assertTrue(accessor.contains("package com.example;"));
+        assertTrue(accessor.contains("private static final String RESOURCE = \"grpc-descriptors.desc\";"));
+    }
+}
@@ -0,0 +1,116 @@
+package io.osins.grpc.reactor.plugin.maven;
+
+import com.google.protobuf.DescriptorProtos;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorRegistry;
+import io.osins.grpc.reactor.plugin.maven.service.ProtoSourceParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DescriptorRegistryTest {
+    private final Path protoDir = Path.of(System.getProperty("user.dir"), "src/test/resources/grpc/proto");
+
+    private DescriptorRegistry parse(String name) throws Exception {
+        return DescriptorRegistry.of(new ProtoSourceParser().parse(List.of(protoDir.resolve(name))), List.of(name));
+    }
+
+    @Test
+    void testMergeAndLookup() throws Exception {
+        var role = parse("role.service.proto");
+        var permission = parse("permission.service.proto");
+        var commons = role.file("commons.proto").orElseThrow();
+
+        // 两个闭包都包含 commons.proto，合并后只保留第一份
+        var registry = new DescriptorRegistry().addAll(role).addAll(permission);
+        assertSame(commons, registry.file("commons.proto").orElseThrow());
+        assertEquals(registry.files().size(), registry.files().stream().map(f -> f.getName()).distinct().count());
+        assertEquals(List.of("role.service.proto", "permission.service.proto"),
+                registry.targets().stream().map(f -> f.getName()).toList());
+
+        assertEquals("SysRoleService", registry.service(".SysRoleService").orElseThrow().service().getName());
+        assertEquals("FindById", registry.method("SysPermissionService/FindById").orElseThrow().method().getName());
+        assertEquals("commons.proto", registry.message(".FindByIdRequest").orElseThrow().file().getName());
+        assertTrue(registry.service("Missing").isEmpty());
+
+        // 链接按需进行并缓存
+        var descriptor = registry.messageDescriptor("SysRole");
+        assertEquals("google.protobuf.Timestamp", descriptor.findFieldByName("createdAt").getMessageType().getFullName());
+        assertSame(registry.link("role.service.proto"), registry.link("role.service.proto"));
+        assertEquals("FindById", registry.methodDescriptor("SysRoleService.FindById").getName());
+    }
+
+    @Test
+    void testFilesAreKeyedByProtoPathRelativeName() {
+        var first = DescriptorProtos.FileDescriptorProto.newBuilder().setName("com/acme/commons.proto").setPackage("com.acme").build();
+        var other = DescriptorProtos.FileDescriptorProto.newBuilder().setName("org/other/commons.proto").setPackage("org.other").build();
+        var shadowed = DescriptorProtos.FileDescriptorProto.newBuilder().setName("com/acme/commons.proto").setPackage("com.shadowed").build();
+
+        // 不同目录下的同名文件各自保留
+        var registry = new DescriptorRegistry().add(first, true).add(other, true);
+        assertEquals(2, registry.size());
+        assertSame(other, registry.file("org/other/commons.proto").orElseThrow());
+
+        // 相对 proto_path 同名时保留先加入的一份
+        registry.addAll(DescriptorRegistry.of(DescriptorProtos.FileDescriptorSet.newBuilder().addFile(shadowed).build()));
+        assertEquals(2, registry.size());
+        assertSame(first, registry.file("com/acme/commons.proto").orElseThrow());
+    }
+
+    @Test
+    void testReplaceAllKeepsUnchangedLinks() throws Exception {
+        var registry = new DescriptorRegistry().addAll(parse("role.service.proto"));
+        var linked = registry.link("role.service.proto");
+
+        // 另一个模块的闭包带来相同的 commons.proto，已链接的描述符仍可用
+        registry.replaceAll(parse("permission.service.proto"));
+        assertSame(linked, registry.link("role.service.proto"));
+        assertSame(registry.link("commons.proto"), linked.getDependencies().stream()
+                .filter(d -> d.getName().equals("commons.proto")).findFirst().orElseThrow());
+        assertEquals(List.of("role.service.proto", "permission.service.proto"),
+                registry.targets().stream().map(f -> f.getName()).toList());
+    }
+
+    @Test
+    void testReplaceAllUnindexesOldVersion() throws Exception {
+        var registry = new DescriptorRegistry().addAll(parse("role.service.proto"));
+        var linked = registry.link("role.service.proto");
+        assertTrue(registry.method("SysRoleService.FindById").isPresent());
+
+        // 新版本只保留 FindAll，服务改名，删除 CreateRoleRequest 并新增 Role
+        var old = registry.file("role.service.proto").orElseThrow();
+        var service = old.getService(0).toBuilder().setName("RoleService").clearMethod()
+                .addMethod(old.getService(0).getMethod(0)).build();
+        var messages = old.getMessageTypeList().stream().filter(m -> !m.getName().equals("CreateRoleRequest")).toList();
+        var changed = old.toBuilder().clearService().addService(service)
+                .clearMessageType().addAllMessageType(messages)
+                .addMessageType(DescriptorProtos.DescriptorProto.newBuilder().setName("Role")).build();
+        var update = new DescriptorRegistry().add(changed, true);
+        for (var dependency : changed.getDependencyList())
+            update.add(registry.file(dependency).orElseThrow(), false);
+
+        registry.replaceAll(update);
+        assertSame(changed, registry.file("role.service.proto").orElseThrow());
+        assertTrue(registry.service("SysRoleService").isEmpty());
+        assertTrue(registry.method("SysRoleService.FindById").isEmpty());
+        assertTrue(registry.message("CreateRoleRequest").isEmpty());
+        assertTrue(registry.message("SysRole").isPresent());
+        assertTrue(registry.service("RoleService").isPresent());
+        assertTrue(registry.method("RoleService.FindAll").isPresent());
+        assertTrue(registry.method("RoleService.FindById").isEmpty());
+        assertEquals("Role", registry.message("Role").orElseThrow().message().getName());
+        // 已链接的描述符失效，重新链接得到新版本
+        assertNotSame(linked, registry.link("role.service.proto"));
+        assertNotNull(registry.link("role.service.proto").findServiceByName("RoleService"));
+        assertEquals(List.of("role.service.proto"), registry.targets().stream().map(f -> f.getName()).toList());
+
+        registry.clear();
+        assertTrue(registry.isEmpty());
+        assertTrue(registry.targets().isEmpty());
+        assertTrue(registry.service("RoleService").isEmpty());
+        assertTrue(registry.message("Role").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> registry.link("role.service.proto"));
+    }
+}
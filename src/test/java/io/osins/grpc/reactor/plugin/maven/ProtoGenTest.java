@@ -83,7 +83,7 @@ public class ProtoGenTest {
     }
 
     @Test
-    public void testGetFileDescriptorSet() throws Exception {
+    public void testGetDescriptorRegistry() throws Exception {
 
         // 创建 Guice Injector
         var threads = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
@@ -92,23 +92,26 @@ public class ProtoGenTest {
         // 注入 ProtoService
         var protoService = injector.getInstance(ProtoService.class);
 
-        // 调用 ProtoService 获取 FileDescriptorSet
-        var result = protoService.getFileDescriptorSet(source, outDesc, outProtobuf);
+        // 调用 ProtoService 获取去重后的描述符
+        var registry = protoService.getDescriptorRegistry(source, outDesc, outProtobuf);
 
-        assertNotNull(result);
-        assertFalse(result.isEmpty());
+        assertNotNull(registry);
+        assertFalse(registry.targets().isEmpty());
+
+        // 共享的 import 只保存一份
+        assertEquals(registry.files().size(), registry.files().stream().map(DescriptorProtos.FileDescriptorProto::getName).distinct().count());
+        assertTrue(registry.service("SysRoleService").isPresent());
+        assertEquals("FindById", registry.methodDescriptor("SysRoleService/FindById").getName());
 
         // 遍历并打印解析结果
-        for (DescriptorProtos.FileDescriptorSet descSet : result) {
-            for (DescriptorProtos.FileDescriptorProto f : descSet.getFileList()) {
-                log.info("Parsed proto file: {}({}) with {} services", f.getName(), f.getPackage(), f.getServiceCount());
-
-                f.getMessageTypeList().forEach(m -> log.info("Message: {}", m.getName()));
-                f.getServiceList().forEach(s -> {
-                    log.info("Service: {}", s.getName());
-                    s.getMethodList().forEach(m -> log.info("Method: {}", m.getName()));
-                });
-            }
+        for (DescriptorProtos.FileDescriptorProto f : registry.files()) {
+            log.info("Parsed proto file: {}({}) with {} services", f.getName(), f.getPackage(), f.getServiceCount());
+
+            f.getMessageTypeList().forEach(m -> log.info("Message: {}", m.getName()));
+            f.getServiceList().forEach(s -> {
+                log.info("Service: {}", s.getName());
+                s.getMethodList().forEach(m -> log.info("Method: {}", m.getName()));
+            });
         }
     }
 }
@@ -0,0 +1,87 @@
+package io.osins.grpc.reactor.plugin.maven;
+
+import io.osins.grpc.reactor.plugin.maven.service.ProtoImportGraph;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoPaths;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProtoImportGraphTest {
+    @TempDir
+    Path dir;
+
+    private Path proto(String name, String... imports) throws Exception {
+        var content = new StringBuilder("syntax = \"proto3\";\n");
+        for (var i : imports)
+            content.append("import \"").append(i).append("\";\n");
+        return Files.writeString(dir.resolve(name), content.toString());
+    }
+
+    @Test
+    void testWavesAndJobs() throws Exception {
+        var commons = proto("commons.proto", "google/protobuf/empty.proto");
+        var role = proto("role.service.proto", "commons.proto");
+        var user = proto("user.service.proto", "commons.proto", "role.service.proto");
+        var other = proto("other.proto");
+
+        var graph = ProtoImportGraph.build(List.of(commons, role, user, other));
+
+        assertTrue(graph.cycles().isEmpty());
+        var waves = graph.waves();
+        assertEquals(3, waves.size());
+        assertTrue(waves.get(0).contains(commons.toAbsolutePath().normalize()));
+        assertEquals(List.of(user.toAbsolutePath().normalize()), waves.get(2));
+        assertEquals(3, graph.criticalPath().size());
+
+        // 每个目标文件恰好属于一个任务
+        var jobs = graph.jobs(4);
+        var files = jobs.stream().flatMap(j -> j.files().stream()).sorted().toList();
+        assertEquals(4, files.size());
+        assertEquals(4, files.stream().distinct().count());
+    }
+
+    @Test
+    void testCycle() throws Exception {
+        var a = proto("a.proto", "b.proto");
+        var b = proto("b.proto", "a.proto");
+
+        var cycles = ProtoImportGraph.build(List.of(a, b)).cycles();
+        assertEquals(1, cycles.size());
+        assertEquals(2, cycles.get(0).size());
+    }
+
+    @Test
+    void testImportsResolveAgainstProtoPaths() throws Exception {
+        // 工程源码目录与依赖 jar 的解出目录，import 写的是相对 proto_path 的路径
+        var source = Files.createDirectories(dir.resolve("src/main/proto"));
+        var dependency = Files.createDirectories(dir.resolve("protos/0123abcd"));
+        var user = Files.createDirectories(dependency.resolve("com/acme")).resolve("user.proto");
+        Files.writeString(user, "syntax = \"proto3\";\n");
+        var role = Files.createDirectories(dependency.resolve("com/acme")).resolve("role.proto");
+        Files.writeString(role, "syntax = \"proto3\";\nimport \"com/acme/user.proto\";\n");
+        var app = Files.createDirectories(source.resolve("app")).resolve("app.proto");
+        Files.writeString(app, "syntax = \"proto3\";\nimport \"com/acme/role.proto\";\n");
+
+        var protoPaths = ProtoPaths.of(List.of(source, dependency));
+        assertEquals("app/app.proto", protoPaths.name(app));
+        assertEquals("com/acme/user.proto", protoPaths.name(user));
+
+        var graph = ProtoImportGraph.build(List.of(app, role, user), protoPaths);
+        assertEquals(List.of(role.toAbsolutePath().normalize()), graph.imports(app));
+        assertEquals(List.of(user.toAbsolutePath().normalize()), graph.imports(role));
+        assertEquals(3, graph.waves().size());
+
+        // 任务按 proto_path 划分
+        var jobs = graph.jobs(1);
+        assertEquals(2, jobs.size());
+        assertEquals(Set.of(source.toAbsolutePath().normalize(), dependency.toAbsolutePath().normalize()),
+                jobs.stream().map(ProtoImportGraph.Job::protoDir).collect(Collectors.toSet()));
+    }
+}
@@ -0,0 +1,78 @@
+package io.osins.grpc.reactor.plugin.maven;
+
+import com.google.protobuf.DescriptorProtos;
+import io.osins.grpc.reactor.plugin.maven.service.ProtoSourceParser;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoPaths;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class ProtoSourceParserTest {
+    private final Path protoDir = Path.of(System.getProperty("user.dir"), "src/test/resources/grpc/proto");
+
+    @Test
+    void testParseWithoutProtoc() throws Exception {
+        try (var paths = Files.list(protoDir)) {
+            var protoFiles = paths.filter(p -> p.toString().endsWith(".proto")).sorted().toList();
+            var set = new ProtoSourceParser().parse(protoFiles);
+
+            var files = set.getFileList().stream()
+                    .collect(Collectors.toMap(DescriptorProtos.FileDescriptorProto::getName, f -> f));
+            var names = set.getFileList().stream().map(DescriptorProtos.FileDescriptorProto::getName).toList();
+
+            // 依赖在前
+            assertTrue(names.indexOf("commons.proto") < names.indexOf("role.service.proto"));
+            assertTrue(names.indexOf("google/protobuf/empty.proto") < names.indexOf("role.service.proto"));
+
+            var role = files.get("role.service.proto");
+            assertEquals("com.example.grpc", role.getOptions().getJavaPackage());
+            var findAll = role.getService(0).getMethodList().stream()
+                    .filter(m -> m.getName().equals("FindAll"))
+                    .findFirst().orElseThrow();
+            assertEquals(".google.protobuf.Empty", findAll.getInputType());
+            assertEquals(".SysRoleList", findAll.getOutputType());
+
+            var authority = files.get("user.authority.service.proto");
+            var streaming = authority.getService(0).getMethodList().stream()
+                    .filter(m -> m.getName().equals("LoadUsersByIds"))
+                    .findFirst().orElseThrow();
+            assertTrue(streaming.getServerStreaming());
+            assertFalse(streaming.getClientStreaming());
+
+            log.info("Parsed {} files in process", set.getFileCount());
+        }
+    }
+
+    @Test
+    void testImportFromDependencyProtoPath(@TempDir Path dir) throws Exception {
+        var source = Files.createDirectories(dir.resolve("proto"));
+        var dependency = Files.createDirectories(dir.resolve("dependency"));
+        Files.createDirectories(dependency.resolve("com/acme"));
+        Files.writeString(dependency.resolve("com/acme/user.proto"), """
+                syntax = "proto3";
+                package com.acme;
+                message User { string name = 1; }
+                """);
+        var app = Files.writeString(source.resolve("app.proto"), """
+                syntax = "proto3";
+                import "com/acme/user.proto";
+                service AppService { rpc Get(com.acme.User) returns (com.acme.User); }
+                """);
+
+        var set = new ProtoSourceParser().parse(List.of(app), ProtoPaths.of(List.of(source, dependency)));
+
+        assertEquals(List.of("com/acme/user.proto", "app.proto"),
+                set.getFileList().stream().map(DescriptorProtos.FileDescriptorProto::getName).toList());
+        assertEquals(".com.acme.User", set.getFile(1).getService(0).getMethod(0).getInputType());
+        // 没有公共 proto_path 时按文件所在目录解析，找不到依赖中的文件
+        assertThrows(Exception.class, () -> new ProtoSourceParser().parse(List.of(app)));
+    }
+}
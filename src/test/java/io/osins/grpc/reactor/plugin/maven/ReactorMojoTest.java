@@ -0,0 +1,100 @@
+package io.osins.grpc.reactor.plugin.maven;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactorMojoTest {
+    @TempDir
+    Path dir;
+
+    private static MavenProject project(Path basedir) {
+        var project = new MavenProject();
+        project.setGroupId("com.acme");
+        project.setArtifactId(basedir.getFileName().toString());
+        project.setVersion("1.0");
+        project.setFile(basedir.resolve("pom.xml").toFile());
+        project.getBuild().setDirectory(basedir.resolve("target").toString());
+        return project;
+    }
+
+    private ReactorMojo reactor() {
+        var properties = new Properties();
+        properties.setProperty("protoGroup", "com.acme");
+        properties.setProperty("moduleIncremental", "false");
+        var request = new DefaultMavenExecutionRequest().setUserProperties(properties);
+
+        var reactor = new ReactorMojo();
+        reactor.setSession(new MavenSession(null, null, request, new DefaultMavenExecutionResult()));
+        reactor.setProject(project(dir));
+        reactor.setPackageName("com.example");
+        reactor.setIncremental(true);
+        reactor.setMinimalClasspath(true);
+        return reactor;
+    }
+
+    @Test
+    void testModuleConfigurationIsEvaluatedPerModule() throws Exception {
+        var configuration = Xpp3DomBuilder.build(new StringReader("""
+                <configuration>
+                    <outDesc>${project.build.directory}/desc</outDesc>
+                    <serviceName>${project.artifactId}-grpc</serviceName>
+                    <packageName/>
+                    <incremental>${moduleIncremental}</incremental>
+                    <protoDependencies>
+                        <protoDependency/>
+                        <protoDependency>  ${protoGroup}:*  </protoDependency>
+                    </protoDependencies>
+                </configuration>
+                """));
+
+        var reactor = reactor();
+        var api = project(dir.resolve("api"));
+        var model = project(dir.resolve("model"));
+        var apiMojo = reactor.forModule(api, configuration);
+        var modelMojo = reactor.forModule(model, configuration);
+
+        assertEquals(dir.resolve("api/target") + "/desc", apiMojo.getOutDesc());
+        assertEquals(dir.resolve("model/target") + "/desc", modelMojo.getOutDesc());
+        assertEquals("api-grpc", apiMojo.getServiceName());
+        assertEquals("model-grpc", modelMojo.getServiceName());
+        // 空元素保留当前执行的参数，空的列表元素被忽略
+        assertEquals("com.example", apiMojo.getPackageName());
+        assertFalse(apiMojo.isIncremental());
+        assertTrue(apiMojo.isMinimalClasspath());
+        assertEquals(List.of("com.acme:*"), apiMojo.getProtoDependencies());
+
+        // 每个模块得到指向自己的会话，不改变当前执行的会话
+        assertSame(api, apiMojo.getProject());
+        assertSame(api, apiMojo.getSession().getCurrentProject());
+        assertSame(model, modelMojo.getSession().getCurrentProject());
+        assertNull(reactor.getSession().getCurrentProject());
+    }
+
+    @Test
+    void testInjectedParametersAreNotConfigured() throws Exception {
+        var configuration = Xpp3DomBuilder.build(new StringReader("""
+                <configuration>
+                    <project>${project.parent}</project>
+                    <protoDependencies>${protoGroup}:*</protoDependencies>
+                </configuration>
+                """));
+
+        var api = project(dir.resolve("api"));
+        var module = reactor().forModule(api, configuration);
+        assertSame(api, module.getProject());
+        // 列表参数只读取子元素
+        assertEquals(List.of(), module.getProtoDependencies());
+    }
+}
@@ -0,0 +1,247 @@
+package io.osins.grpc.reactor.plugin.maven;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.osins.grpc.reactor.plugin.maven.utils.GeneratedRuntime;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 生成的 ReactorStubs 的缓存行为：只解析一次、失败不缓存、只在通道关闭后重新解析
+ */
+class ReactorStubsRuntimeTest {
+    @TempDir
+    static Path generated;
+
+    private static Method cached;
+    private static Method cachedKeeping;
+    private static Method call;
+    private static Method current;
+
+    /**
+     * 状态由测试控制的通道
+     */
+    static final class TestChannel extends ManagedChannel {
+        private final List<Runnable> listeners = new ArrayList<>();
+        private ConnectivityState state = ConnectivityState.READY;
+
+        void transition(ConnectivityState next) {
+            state = next;
+            var notify = new ArrayList<>(listeners);
+            listeners.clear();
+            notify.forEach(Runnable::run);
+        }
+
+        @Override
+        public ConnectivityState getState(boolean requestConnection) {
+            return state;
+        }
+
+        @Override
+        public void notifyWhenStateChanged(ConnectivityState source, Runnable callback) {
+            if (source != state)
+                callback.run();
+            else
+                listeners.add(callback);
+        }
+
+        @Override
+        public ManagedChannel shutdown() {
+            transition(ConnectivityState.SHUTDOWN);
+            return this;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return state == ConnectivityState.SHUTDOWN;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return isShutdown();
+        }
+
+        @Override
+        public ManagedChannel shutdownNow() {
+            return shutdown();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return isTerminated();
+        }
+
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions options) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String authority() {
+            return "test";
+        }
+    }
+
+    @BeforeAll
+    static void compileGenerated() throws Exception {
+        var loader = GeneratedRuntime.compile(generated);
+        var stubs = loader.loadClass("com.example.ReactorStubs");
+        cached = stubs.getMethod("cached", Mono.class);
+        cachedKeeping = stubs.getMethod("cached", Mono.class, boolean.class);
+        call = stubs.getMethod("call", Mono.class, Function.class);
+        current = loader.loadClass("com.example.ReactorStubs$Cached").getMethod("current");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Mono<ClientCallsRuntimeTest.TestStub> cached(Mono<ClientCallsRuntimeTest.TestStub> source) throws Exception {
+        return (Mono<ClientCallsRuntimeTest.TestStub>) cached.invoke(null, source);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Mono<ClientCallsRuntimeTest.TestStub> cachedKeeping(Mono<ClientCallsRuntimeTest.TestStub> source) throws Exception {
+        return (Mono<ClientCallsRuntimeTest.TestStub>) cachedKeeping.invoke(null, source, true);
+    }
+
+    private static Object current(Mono<ClientCallsRuntimeTest.TestStub> stub) throws Exception {
+        return current.invoke(stub);
+    }
+
+    /**
+     * 每次订阅创建一个新通道上的 stub
+     */
+    private static Mono<ClientCallsRuntimeTest.TestStub> source(AtomicInteger resolved, List<TestChannel> channels) {
+        return Mono.fromCallable(() -> {
+            resolved.incrementAndGet();
+            var channel = new TestChannel();
+            channels.add(channel);
+            return new ClientCallsRuntimeTest.TestStub(channel, CallOptions.DEFAULT);
+        });
+    }
+
+    @Test
+    void testResolvesOnce() throws Exception {
+        var resolved = new AtomicInteger();
+        var stub = cached(source(resolved, new ArrayList<>()));
+        assertSame(stub, cached(stub));
+        assertNull(current(stub));
+
+        var first = stub.block(Duration.ofSeconds(5));
+        assertSame(first, stub.block(Duration.ofSeconds(5)));
+        assertSame(first, current(stub));
+        assertEquals(1, resolved.get());
+    }
+
+    @Test
+    void testFailuresAreNotCached() throws Exception {
+        var attempts = new AtomicInteger();
+        var stub = cached(Mono.defer(() -> switch (attempts.incrementAndGet()) {
+            case 1 -> Mono.<ClientCallsRuntimeTest.TestStub>error(new IllegalStateException("channel not ready"));
+            case 2 -> Mono.<ClientCallsRuntimeTest.TestStub>empty();
+            default -> Mono.just(new ClientCallsRuntimeTest.TestStub(new TestChannel(), CallOptions.DEFAULT));
+        }));
+
+        assertThrows(IllegalStateException.class, () -> stub.block(Duration.ofSeconds(5)));
+        assertNull(current(stub));
+        assertNull(stub.block(Duration.ofSeconds(5)));
+        assertNull(current(stub));
+        assertNotNull(stub.block(Duration.ofSeconds(5)));
+        assertNotNull(current(stub));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void testInvalidatedOnTransientFailure() throws Exception {
+        var resolved = new AtomicInteger();
+        var channels = new ArrayList<TestChannel>();
+        var stub = cached(source(resolved, channels));
+        var first = stub.block(Duration.ofSeconds(5));
+
+        channels.get(0).transition(ConnectivityState.CONNECTING);
+        assertSame(first, current(stub));
+
+        // 连接失败后重新解析得到新通道上的 stub
+        channels.get(0).transition(ConnectivityState.TRANSIENT_FAILURE);
+        assertNull(current(stub));
+        var second = stub.block(Duration.ofSeconds(5));
+        assertNotSame(first, second);
+        assertSame(channels.get(1), second.getChannel());
+        assertEquals(2, resolved.get());
+
+        // 通道关闭同样丢弃缓存
+        channels.get(1).shutdown();
+        assertNull(current(stub));
+        assertSame(channels.get(2), stub.block(Duration.ofSeconds(5)).getChannel());
+        assertEquals(3, resolved.get());
+    }
+
+    @Test
+    void testKeepOnTransientFailure() throws Exception {
+        var resolved = new AtomicInteger();
+        var channels = new ArrayList<TestChannel>();
+        var stub = cachedKeeping(source(resolved, channels));
+        var first = stub.block(Duration.ofSeconds(5));
+
+        // 通道自己重连，缓存保持不变
+        channels.get(0).transition(ConnectivityState.TRANSIENT_FAILURE);
+        channels.get(0).transition(ConnectivityState.CONNECTING);
+        assertSame(first, current(stub));
+        assertSame(first, stub.block(Duration.ofSeconds(5)));
+        assertEquals(1, resolved.get());
+
+        // 通道关闭后重新解析得到新通道上的 stub
+        channels.get(0).shutdown();
+        assertNull(current(stub));
+        var second = stub.block(Duration.ofSeconds(5));
+        assertNotSame(first, second);
+        assertSame(channels.get(1), second.getChannel());
+        assertEquals(2, resolved.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Mono<ClientCallsRuntimeTest.TestStub> call(Mono<ClientCallsRuntimeTest.TestStub> stub,
+                                                             Function<ClientCallsRuntimeTest.TestStub, Mono<ClientCallsRuntimeTest.TestStub>> function) throws Exception {
+        return (Mono<ClientCallsRuntimeTest.TestStub>) call.invoke(null, stub, function);
+    }
+
+    @Test
+    void testCallUsesResolvedStubDirectly() throws Exception {
+        var resolved = new AtomicInteger();
+        var stub = cached(source(resolved, new ArrayList<>()));
+
+        // 尚未解析时先订阅 stub
+        var first = call(stub, Mono::just).block(Duration.ofSeconds(5));
+        assertSame(current(stub), first);
+
+        // 之后直接使用缓存的 stub；调用在订阅时才执行
+        var invoked = new AtomicInteger();
+        var mono = call(stub, s -> {
+            invoked.incrementAndGet();
+            return Mono.just(s);
+        });
+        assertEquals(0, invoked.get());
+        assertSame(first, mono.block(Duration.ofSeconds(5)));
+        assertSame(first, mono.block(Duration.ofSeconds(5)));
+        assertEquals(2, invoked.get());
+        assertEquals(1, resolved.get());
+
+        // 没有经过 cached 的 stub 同样可用
+        var plain = Mono.just(new ClientCallsRuntimeTest.TestStub(new TestChannel(), CallOptions.DEFAULT));
+        assertNotNull(call(plain, Mono::just).block(Duration.ofSeconds(5)));
+    }
+}
@@ -0,0 +1,58 @@
+package io.osins.grpc.reactor.plugin.maven;
+
+import com.google.protobuf.Descriptors;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorRegistry;
+import io.osins.grpc.reactor.plugin.maven.service.ProtoSourceParser;
+import io.osins.grpc.reactor.plugin.maven.service.SharedDescriptors;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedDescriptorsTest {
+    private final Path protoDir = Path.of(System.getProperty("user.dir"), "src/test/resources/grpc/proto");
+
+    private DescriptorRegistry parse(String name) throws Exception {
+        return DescriptorRegistry.of(new ProtoSourceParser().parse(List.of(protoDir.resolve(name))), List.of(name));
+    }
+
+    @Test
+    void testModulesShareLinkedImports() throws Exception {
+        var shared = new SharedDescriptors();
+
+        // 两个模块都 import commons.proto，合并后只链接一次
+        Descriptors.FileDescriptor commons;
+        try (var role = shared.merge(parse("role.service.proto"))) {
+            commons = role.registry().link("commons.proto");
+        }
+        try (var permission = shared.merge(parse("permission.service.proto"))) {
+            assertSame(commons, permission.registry().link("commons.proto"));
+            assertSame(commons, permission.registry().link("permission.service.proto").getDependencies().stream()
+                    .filter(d -> d.getName().equals("commons.proto")).findFirst().orElseThrow());
+            assertEquals(List.of("role.service.proto", "permission.service.proto"),
+                    permission.registry().targets().stream().map(f -> f.getName()).toList());
+        }
+    }
+
+    @Test
+    void testMergeWaitsForOpenLeases() throws Exception {
+        var shared = new SharedDescriptors();
+        var role = shared.merge(parse("role.service.proto"));
+        var permission = parse("permission.service.proto");
+
+        // 其他模块仍在使用时不能替换文件
+        var merged = CompletableFuture.supplyAsync(() -> shared.merge(permission));
+        Thread.sleep(200);
+        assertFalse(merged.isDone());
+
+        role.close();
+        role.close();
+        try (var lease = merged.get(10, TimeUnit.SECONDS)) {
+            assertTrue(lease.registry().service("SysPermissionService").isPresent());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.osins.grpc.reactor.plugin.maven;
+
+import com.google.inject.Injector;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorRegistry;
+import io.osins.grpc.reactor.plugin.maven.service.GenerationManifest;
+import io.osins.grpc.reactor.plugin.maven.service.ProcessSupervisor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WatchMojoTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * 记录每次生成收到的上一次清单
+     */
+    private static class RecordingWatchMojo extends WatchMojo {
+        private final List<GenerationManifest> previous = new ArrayList<>();
+
+        @Override
+        protected GenerationManifest generate(Injector protoInjector, Injector reactiveCodeInjector, GenerationManifest manifest, DescriptorRegistry resident) {
+            previous.add(manifest);
+            return new GenerationManifest();
+        }
+    }
+
+    @Test
+    void testRegenerateHonorsIncremental() throws Exception {
+        var mojo = new RecordingWatchMojo();
+        var manifest = new GenerationManifest();
+
+        try (var supervisor = new ProcessSupervisor()) {
+            mojo.setIncremental(true);
+            supervisor.cancelAll("previous cycle failed");
+            var next = mojo.regenerate(supervisor, null, null, manifest, new DescriptorRegistry());
+            assertFalse(supervisor.isCancelled());
+
+            // 关闭增量生成时每次都全量生成
+            mojo.setIncremental(false);
+            mojo.regenerate(supervisor, null, null, next, new DescriptorRegistry());
+
+            assertSame(manifest, mojo.previous.get(0));
+            assertNull(mojo.previous.get(1));
+        }
+    }
+
+    @Test
+    void testAwaitChangesCollectsProtoFilesAndNewDirectories() throws Exception {
+        var mojo = new WatchMojo();
+        mojo.setWatchDebounceMillis(200);
+
+        try (var watcher = FileSystems.getDefault().newWatchService()) {
+            WatchMojo.register(dir, watcher);
+
+            var user = Files.writeString(dir.resolve("user.proto"), "syntax = \"proto3\";");
+            Files.writeString(dir.resolve("notes.txt"), "ignored");
+            var nested = Files.createDirectory(dir.resolve("nested"));
+            assertEquals(Set.of(user, nested), mojo.awaitChanges(watcher));
+
+            // 新建的目录已加入监听
+            var role = Files.writeString(nested.resolve("role.proto"), "syntax = \"proto3\";");
+            assertEquals(Set.of(role), mojo.awaitChanges(watcher));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.osins.grpc.reactor.plugin.maven.benchmark;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+import io.osins.grpc.reactor.plugin.maven.module.ProtoModule;
+import io.osins.grpc.reactor.plugin.maven.module.ReactiveCodeModule;
+import io.osins.grpc.reactor.plugin.maven.service.BuildMetrics;
+import io.osins.grpc.reactor.plugin.maven.service.GeneratedOutput;
+import io.osins.grpc.reactor.plugin.maven.service.ProcessSupervisor;
+import io.osins.grpc.reactor.plugin.maven.service.ProtocToolchain;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 一次基准迭代的工程环境：独立的临时工程目录、与 mojo 相同方式组装的两个注入器。
+ * 每次迭代重新创建，保证 GeneratedOutput 等单例与输出目录都是冷的。
+ */
+public final class BenchmarkFixture implements AutoCloseable {
+    public static final String OUT_DESC = "/desc";
+    public static final String OUT_PROTOBUF = "/protobuf";
+    public static final String RESOLVE = "io.grpc:protoc-gen-grpc-java:linux-x86_64:exe:1.76.0";
+
+    private final Path root;
+    private final Injector protoInjector;
+    private final Injector reactiveCodeInjector;
+
+    /**
+     * @param toolchain 为 null 时只能使用描述符生成器，protoc 相关服务不可用
+     */
+    public BenchmarkFixture(ProtocToolchain.Toolchain toolchain) throws IOException {
+        this(Files.createTempDirectory("osins-grpc-bench-"), toolchain);
+    }
+
+    public BenchmarkFixture(Path root, ProtocToolchain.Toolchain toolchain) throws IOException {
+        this.root = root;
+        var project = mock(MavenProject.class);
+        var build = new Build();
+        build.setDirectory(Files.createDirectories(root.resolve("target")).toString());
+        when(project.getBasedir()).thenReturn(root.toFile());
+        when(project.getBuild()).thenReturn(build);
+
+        var protoModule = new ProtoModule(ProcessSupervisor.concurrency(), project,
+                mock(MavenSession.class), mock(RepositorySystemSession.class), mock(RepositorySystem.class), RESOLVE);
+        protoInjector = Guice.createInjector(Modules.override(protoModule).with(binder -> {
+            if (toolchain != null)
+                binder.bind(ProtocToolchain.class).toInstance(fixed(toolchain));
+        }));
+
+        reactiveCodeInjector = Guice.createInjector(new ReactiveCodeModule(project, OUT_PROTOBUF, "bench", "bench.reactor",
+                "benchGrpcChannel", root.resolve("client").toString(), "")
+                .setResolve(RESOLVE)
+                .setMinimalClasspath(true)
+                .setExecutor(protoInjector.getInstance(ExecutorService.class))
+                .setGeneratedOutput(protoInjector.getInstance(GeneratedOutput.class))
+                .setBuildMetrics(protoInjector.getInstance(BuildMetrics.class)));
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    public <T> T proto(Class<T> type) {
+        return protoInjector.getInstance(type);
+    }
+
+    public <T> T reactive(Class<T> type) {
+        return reactiveCodeInjector.getInstance(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        protoInjector.getInstance(ProcessSupervisor.class).close();
+        protoInjector.getInstance(ExecutorService.class).shutdownNow();
+        FileUtils.deleteDirectory(root.toFile());
+    }
+
+    /**
+     * 已知路径的工具链，跳过 Aether 解析
+     */
+    private static ProtocToolchain fixed(ProtocToolchain.Toolchain toolchain) {
+        return new ProtocToolchain(null, null, null, "", RESOLVE, new BuildMetrics()) {
+            @Override
+            public synchronized Toolchain get() {
+                return toolchain;
+            }
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package io.osins.grpc.reactor.plugin.maven.benchmark;
+
+import com.google.protobuf.DescriptorProtos;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorCodeService;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorRegistry;
+import io.osins.grpc.reactor.plugin.maven.service.ProtoSourceParser;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不依赖 protoc 的生成流程：JVM 内解析 proto 源码与基于描述符的代码生成。
+ * 每次测量是一次完整的冷运行（新的注入器与空输出目录），因此使用 SingleShotTime。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class DescriptorPipelineBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Corpus {
+        @Param({"10", "100", "1000", "5000"})
+        public int services;
+
+        SyntheticProtoCorpus.Corpus corpus;
+        DescriptorProtos.FileDescriptorSet parsed;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            corpus = SyntheticProtoCorpus.write(Files.createTempDirectory("osins-grpc-corpus-"), services);
+            parsed = new ProtoSourceParser().parse(corpus.files());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileUtils.deleteDirectory(corpus.dir().toFile());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Workspace {
+        BenchmarkFixture fixture;
+
+        @Setup(Level.Iteration)
+        public void setup() throws IOException {
+            fixture = new BenchmarkFixture(null);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            fixture.close();
+        }
+    }
+
+    @Benchmark
+    public DescriptorProtos.FileDescriptorSet parse(Corpus corpus, Workspace workspace, HeapPeak heap) throws IOException {
+        var result = new ProtoSourceParser().parse(corpus.corpus.files());
+        heap.sample();
+        return result;
+    }
+
+    @Benchmark
+    public void generate(Corpus corpus, Workspace workspace, HeapPeak heap) throws IOException {
+        workspace.fixture.reactive(DescriptorCodeService.class).generate(DescriptorRegistry.of(corpus.parsed), name -> true);
+        heap.sample();
+    }
+
+    /**
+     * 解析、生成并写出全部文件
+     */
+    @Benchmark
+    public void endToEnd(Corpus corpus, Workspace workspace, HeapPeak heap) throws IOException {
+        var parsed = new ProtoSourceParser().parse(corpus.corpus.files());
+        workspace.fixture.reactive(DescriptorCodeService.class).generate(DescriptorRegistry.of(parsed), name -> true);
+        heap.sample();
+    }
+}
@@ -0,0 +1,27 @@
+package io.osins.grpc.reactor.plugin.maven.benchmark;
+
+import io.osins.grpc.reactor.plugin.maven.service.BuildMetrics;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * 每次测量的堆内存峰值（MB），作为 JMH 附加结果输出；分配速率由 -prof gc 给出
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class HeapPeak {
+    public long heapPeakMb;
+
+    private BuildMetrics metrics;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        System.gc();
+        // BuildMetrics 创建时记录各堆内存池峰值的基线，之后只统计本次迭代
+        metrics = new BuildMetrics();
+        heapPeakMb = 0;
+    }
+
+    public void sample() {
+        heapPeakMb = Math.max(heapPeakMb, metrics.heapPeakBytes() / (1024 * 1024));
+    }
+}
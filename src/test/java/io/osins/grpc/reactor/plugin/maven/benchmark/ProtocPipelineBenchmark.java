@@ -0,0 +1,174 @@
+package io.osins.grpc.reactor.plugin.maven.benchmark;
+
+import com.google.common.base.Strings;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorCodeService;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorRegistry;
+import io.osins.grpc.reactor.plugin.maven.service.JavaService;
+import io.osins.grpc.reactor.plugin.maven.service.ProtoService;
+import io.osins.grpc.reactor.plugin.maven.service.ProtocToolchain;
+import io.osins.grpc.reactor.plugin.maven.service.ReactiveCodeService;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+import spoon.Launcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static io.osins.grpc.reactor.plugin.maven.benchmark.BenchmarkFixture.OUT_DESC;
+import static io.osins.grpc.reactor.plugin.maven.benchmark.BenchmarkFixture.OUT_PROTOBUF;
+
+/**
+ * 依赖 protoc 的生成流程：getDescriptorRegistry、Spoon 加载与生成，以及两种生成器的端到端耗时。
+ * 需要用 -p grpcPlugin=... 指定 protoc-gen-grpc-java，protoc 默认取 PATH。
+ * Spoon 的两个阶段从试验开始时编译好的 grpc-java 源码出发，不重复计入 protoc 时间。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class ProtocPipelineBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Corpus {
+        @Param({"10", "100", "1000", "5000"})
+        public int services;
+
+        @Param("protoc")
+        public String protoc;
+
+        @Param("")
+        public String grpcPlugin;
+
+        SyntheticProtoCorpus.Corpus corpus;
+        ProtocToolchain.Toolchain toolchain;
+        Path compiled;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            if (Strings.isNullOrEmpty(grpcPlugin))
+                throw new IllegalStateException("protoc-gen-grpc-java is required: -p grpcPlugin=/path/to/protoc-gen-grpc-java");
+
+            corpus = SyntheticProtoCorpus.write(Files.createTempDirectory("osins-grpc-corpus-"), services);
+            toolchain = new ProtocToolchain.Toolchain(protoc, "", grpcPlugin);
+
+            compiled = Files.createTempDirectory("osins-grpc-compiled-");
+            try (var fixture = new BenchmarkFixture(toolchain)) {
+                fixture.proto(ProtoService.class).getDescriptorRegistry(corpus.files(), OUT_DESC, OUT_PROTOBUF);
+                FileUtils.copyDirectory(fixture.root().resolve("target/generated-sources").toFile(), compiled.toFile());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileUtils.deleteDirectory(corpus.dir().toFile());
+            FileUtils.deleteDirectory(compiled.toFile());
+        }
+    }
+
+    /**
+     * 空工程
+     */
+    @State(Scope.Benchmark)
+    public static class Fresh {
+        BenchmarkFixture fixture;
+
+        @Setup(Level.Iteration)
+        public void setup(Corpus corpus) throws IOException {
+            fixture = new BenchmarkFixture(corpus.toolchain);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            fixture.close();
+        }
+    }
+
+    /**
+     * 已有 protoc 输出的工程，Spoon 模型已加载
+     */
+    @State(Scope.Benchmark)
+    public static class Loaded {
+        BenchmarkFixture fixture;
+        Launcher launcher;
+
+        @Setup(Level.Iteration)
+        public void setup(Corpus corpus) throws IOException {
+            fixture = compiledFixture(corpus);
+            launcher = fixture.reactive(JavaService.class).loadJavaCodes(OUT_PROTOBUF);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            launcher = null;
+            fixture.close();
+        }
+    }
+
+    /**
+     * 已有 protoc 输出的工程
+     */
+    @State(Scope.Benchmark)
+    public static class Compiled {
+        BenchmarkFixture fixture;
+
+        @Setup(Level.Iteration)
+        public void setup(Corpus corpus) throws IOException {
+            fixture = compiledFixture(corpus);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            fixture.close();
+        }
+    }
+
+    private static BenchmarkFixture compiledFixture(Corpus corpus) throws IOException {
+        var fixture = new BenchmarkFixture(corpus.toolchain);
+        FileUtils.copyDirectory(corpus.compiled.toFile(), fixture.root().resolve("target/generated-sources").toFile());
+        return fixture;
+    }
+
+    @Benchmark
+    public DescriptorRegistry getDescriptorRegistry(Corpus corpus, Fresh fresh, HeapPeak heap) {
+        var result = fresh.fixture.proto(ProtoService.class).getDescriptorRegistry(corpus.corpus.files(), OUT_DESC, OUT_PROTOBUF);
+        heap.sample();
+        return result;
+    }
+
+    @Benchmark
+    public Launcher loadJavaCodes(Compiled compiled, HeapPeak heap) throws IOException {
+        var launcher = compiled.fixture.reactive(JavaService.class).loadJavaCodes(OUT_PROTOBUF);
+        heap.sample();
+        return launcher;
+    }
+
+    @Benchmark
+    public void generateSpringWebfluxConfig(Loaded loaded, HeapPeak heap) throws Exception {
+        loaded.fixture.reactive(ReactiveCodeService.class).generateSpringWebfluxConfig(loaded.launcher);
+        heap.sample();
+    }
+
+    /**
+     * protoc 加描述符生成器（mojo 默认）
+     */
+    @Benchmark
+    public void endToEndDescriptor(Corpus corpus, Fresh fresh, HeapPeak heap) throws IOException {
+        var registry = fresh.fixture.proto(ProtoService.class).getDescriptorRegistry(corpus.corpus.files(), OUT_DESC, OUT_PROTOBUF);
+        fresh.fixture.reactive(DescriptorCodeService.class).generate(registry, name -> true);
+        heap.sample();
+    }
+
+    /**
+     * protoc 加 Spoon 生成器
+     */
+    @Benchmark
+    public void endToEndSpoon(Corpus corpus, Fresh fresh, HeapPeak heap) throws Exception {
+        fresh.fixture.proto(ProtoService.class).getDescriptorRegistry(corpus.corpus.files(), OUT_DESC, OUT_PROTOBUF);
+        var launcher = fresh.fixture.reactive(JavaService.class).loadJavaCodes(OUT_PROTOBUF);
+        fresh.fixture.reactive(ReactiveCodeService.class).generateSpringWebfluxConfig(launcher);
+        heap.sample();
+    }
+}
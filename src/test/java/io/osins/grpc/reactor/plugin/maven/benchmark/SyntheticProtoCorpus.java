@@ -0,0 +1,133 @@
+package io.osins.grpc.reactor.plugin.maven.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * 基准用的合成 proto 工程：一个公共 commons.proto，约每 10 个服务一个共享模型文件，
+ * 每个服务文件 import 公共文件和若干模型文件（扇入），方法数按长尾分布（多数 1~4 个，少数 20 个以上），
+ * 约五分之一的方法为流式。同一种子生成的内容完全一致。
+ */
+public final class SyntheticProtoCorpus {
+    private static final long SEED = 20251018L;
+
+    private SyntheticProtoCorpus() {
+    }
+
+    public record Corpus(Path dir, List<Path> files, List<Path> serviceFiles, int methods) {
+    }
+
+    public static Corpus write(Path dir, int services) throws IOException {
+        var random = new Random(SEED + services);
+        Files.createDirectories(dir);
+
+        var files = new ArrayList<Path>();
+        files.add(Files.writeString(dir.resolve("commons.proto"), """
+                syntax = "proto3";
+                package bench;
+                option java_package = "bench.grpc";
+                option java_multiple_files = true;
+
+                message PageRequest {
+                  int32 page = 1;
+                  int32 size = 2;
+                  string sort = 3;
+                }
+
+                message PageInfo {
+                  int64 total = 1;
+                  int32 page = 2;
+                  int32 size = 3;
+                }
+
+                message IdRequest {
+                  int64 id = 1;
+                }
+
+                enum Status {
+                  STATUS_UNKNOWN = 0;
+                  STATUS_ACTIVE = 1;
+                  STATUS_DISABLED = 2;
+                }
+                """));
+
+        var models = Math.max(1, services / 10);
+        for (var m = 0; m < models; m++) {
+            var content = header();
+            content.append("import \"commons.proto\";\n\n");
+            content.append("message Model").append(m).append(" {\n");
+            content.append("  int64 id = 1;\n  string name = 2;\n  bench.Status status = 3;\n");
+            content.append("  map<string, string> labels = 4;\n  repeated string tags = 5;\n");
+            content.append("}\n");
+            files.add(Files.writeString(dir.resolve("model_" + m + ".proto"), content.toString()));
+        }
+
+        var serviceFiles = new ArrayList<Path>();
+        var methodTotal = 0;
+        for (var s = 0; s < services; s++) {
+            var fanIn = new TreeSet<Integer>();
+            var imports = Math.min(models, 1 + random.nextInt(4));
+            while (fanIn.size() < imports)
+                fanIn.add(random.nextInt(models));
+            var methods = methodCount(random);
+            methodTotal += methods;
+
+            var content = header();
+            content.append("import \"commons.proto\";\n");
+            fanIn.forEach(m -> content.append("import \"model_").append(m).append(".proto\";\n"));
+            content.append('\n');
+
+            var name = "Svc" + s;
+            for (var i = 0; i < methods; i++) {
+                var model = "Model" + fanIn.stream().skip(i % fanIn.size()).findFirst().orElseThrow();
+                content.append("message ").append(name).append("M").append(i).append("Request {\n")
+                        .append("  bench.PageRequest page = 1;\n  string filter = 2;\n  ").append(model).append(" example = 3;\n}\n");
+                content.append("message ").append(name).append("M").append(i).append("Response {\n")
+                        .append("  bench.PageInfo info = 1;\n  repeated ").append(model).append(" items = 2;\n}\n");
+            }
+
+            content.append("\nservice ").append(name).append("Service {\n");
+            for (var i = 0; i < methods; i++) {
+                var stream = random.nextInt(5) == 0;
+                var clientStream = stream && random.nextBoolean();
+                content.append("  rpc Method").append(i).append('(')
+                        .append(clientStream ? "stream " : "").append(name).append("M").append(i).append("Request) returns (")
+                        .append(stream && !clientStream ? "stream " : "").append(name).append("M").append(i).append("Response);\n");
+            }
+            content.append("}\n");
+
+            var file = Files.writeString(dir.resolve("svc_" + s + ".service.proto"), content.toString());
+            files.add(file);
+            serviceFiles.add(file);
+        }
+
+        return new Corpus(dir, List.copyOf(files), List.copyOf(serviceFiles), methodTotal);
+    }
+
+    private static StringBuilder header() {
+        return new StringBuilder("""
+                syntax = "proto3";
+                package bench;
+                option java_package = "bench.grpc";
+                option java_multiple_files = true;
+
+                """);
+    }
+
+    /**
+     * 长尾分布：70% 为 1~4 个方法，25% 为 5~12 个，5% 为 20~40 个
+     */
+    private static int methodCount(Random random) {
+        var roll = random.nextInt(100);
+        if (roll < 70)
+            return 1 + random.nextInt(4);
+        if (roll < 95)
+            return 5 + random.nextInt(8);
+        return 20 + random.nextInt(21);
+    }
+}
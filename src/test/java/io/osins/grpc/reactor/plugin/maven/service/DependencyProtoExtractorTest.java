@@ -0,0 +1,191 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoFiles;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyProtoExtractorTest {
+    private static final List<String> PATTERNS = List.of("com.acme:*");
+
+    @TempDir
+    Path dir;
+
+    private Path jar(String name, Map<String, String> entries) throws IOException {
+        var jar = dir.resolve(name);
+        try (var zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for (var entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static Artifact artifact(String groupId, String artifactId, Path file) {
+        var artifact = new DefaultArtifact(groupId, artifactId, "1.0", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        if (file != null)
+            artifact.setFile(file.toFile());
+        return artifact;
+    }
+
+    private DependencyProtoExtractor extractor(String module, Path jar) {
+        var project = new MavenProject();
+        project.getBuild().setDirectory(dir.resolve(module).resolve("target").toString());
+        project.setArtifacts(Set.of(artifact("com.acme", "api", jar)));
+        return new DependencyProtoExtractor(project, dir.resolve("cache").toString(), new BuildMetrics());
+    }
+
+    @Test
+    void testMatches() {
+        var api = artifact("com.acme", "api", null);
+        assertTrue(DependencyProtoExtractor.matches(api, List.of("com.acme:*")));
+        assertTrue(DependencyProtoExtractor.matches(api, List.of("org.other:x", " com.acme:api ")));
+        assertFalse(DependencyProtoExtractor.matches(api, List.of("com.acme:model")));
+        assertFalse(DependencyProtoExtractor.matches(api, List.of("com.acme")));
+        assertFalse(DependencyProtoExtractor.matches(api, List.of("com.acme.sub:*")));
+    }
+
+    @Test
+    void testExtractKeepsJarPathsAndReusesIndex() throws Exception {
+        var jar = jar("api.jar", Map.of(
+                "com/acme/user.proto", "syntax = \"proto3\";\npackage com.acme;\n",
+                "google/protobuf/empty.proto", "syntax = \"proto3\";\n",
+                "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n"));
+
+        var protos = extractor("a", jar).extract(PATTERNS);
+        assertEquals(1, protos.roots().size());
+        var root = protos.roots().get(0);
+        assertEquals(List.of(root.resolve("com/acme/user.proto")), protos.files());
+        assertTrue(Files.isRegularFile(protos.files().get(0)));
+
+        // 大小与修改时间未变时只读索引，不再打开 jar：把 jar 改成同样长度的无效内容也不影响结果
+        var lastModified = Files.getLastModifiedTime(jar);
+        Files.write(jar, new byte[(int) Files.size(jar)]);
+        Files.setLastModifiedTime(jar, lastModified);
+        assertEquals(protos, extractor("a", jar).extract(PATTERNS));
+
+        // 修改时间变化时重新读取 jar
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(lastModified.toMillis() + 2000));
+        assertThrows(IOException.class, () -> extractor("a", jar).extract(PATTERNS));
+    }
+
+    @Test
+    void testRejectsEntriesOutsideTheExtractionDirectory() throws Exception {
+        var jar = jar("evil.jar", Map.of("../../evil.proto", "syntax = \"proto3\";\n"));
+
+        var e = assertThrows(IOException.class, () -> extractor("a", jar).extract(PATTERNS));
+        assertTrue(e.getMessage().contains("Illegal proto entry"), e.getMessage());
+        assertFalse(Files.exists(dir.resolve("evil.proto")));
+        assertFalse(Files.exists(dir.resolve("cache").resolve("evil.proto")));
+        // 暂存目录已清理，也没有发布结果
+        try (Stream<Path> entries = Files.list(dir.resolve("cache").resolve("protos"))) {
+            assertEquals(0, entries.count());
+        }
+    }
+
+    @Test
+    void testPublishKeepsExistingDirectory() throws Exception {
+        var directory = Files.createDirectories(dir.resolve("published"));
+        Files.writeString(directory.resolve("a.proto"), "first");
+        var staging = Files.createDirectories(dir.resolve("staging"));
+        Files.writeString(staging.resolve("a.proto"), "second");
+
+        DependencyProtoExtractor.publish(staging, directory);
+
+        assertEquals("first", Files.readString(directory.resolve("a.proto")));
+    }
+
+    @Test
+    void testConcurrentExtractionPublishesOnce() throws Exception {
+        var jar = jar("api.jar", Map.of(
+                "com/acme/user.proto", "syntax = \"proto3\";\n",
+                "com/acme/role.proto", "syntax = \"proto3\";\nimport \"com/acme/user.proto\";\n"));
+
+        // 多个模块同时解出同一个 jar
+        var modules = 8;
+        var start = new CountDownLatch(1);
+        var tasks = new ArrayList<Callable<DependencyProtoExtractor.Protos>>();
+        for (var i = 0; i < modules; i++) {
+            var extractor = extractor("m" + i, jar);
+            tasks.add(() -> {
+                start.await();
+                return extractor.extract(PATTERNS);
+            });
+        }
+
+        try (var executor = Executors.newFixedThreadPool(modules)) {
+            var futures = tasks.stream().map(executor::submit).toList();
+            start.countDown();
+            var first = futures.get(0).get();
+            for (var future : futures)
+                assertEquals(first, future.get());
+
+            for (var file : first.files())
+                assertEquals("syntax = \"proto3\";", Files.readString(file).lines().findFirst().orElseThrow());
+        }
+
+        // 只留下一个发布的目录，没有残留的暂存目录
+        try (Stream<Path> entries = Files.list(dir.resolve("cache").resolve("protos"))) {
+            assertEquals(1, entries.count());
+        }
+    }
+
+    @Test
+    void testChangedComparesJarsWithIndex() throws Exception {
+        var jar = jar("api.jar", Map.of("com/acme/user.proto", "syntax = \"proto3\";\n"));
+        var extractor = extractor("a", jar);
+        var project = new MavenProject();
+        project.getBuild().setDirectory(dir.resolve("a").resolve("target").toString());
+        project.setArtifacts(Set.of(artifact("com.acme", "api", jar)));
+
+        // 还没有索引
+        assertTrue(DependencyProtoExtractor.changed(project, PATTERNS));
+        extractor.extract(PATTERNS);
+        assertFalse(DependencyProtoExtractor.changed(project, PATTERNS));
+        assertFalse(DependencyProtoExtractor.changed(project, List.of()));
+
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 2000));
+        assertTrue(DependencyProtoExtractor.changed(project, PATTERNS));
+
+        // 依赖被移除
+        project.setArtifacts(Set.of());
+        assertTrue(DependencyProtoExtractor.changed(project, PATTERNS));
+    }
+
+    @Test
+    void testPluginProtosAreSharedAcrossModules() throws Exception {
+        var protos = extractor("a", null).pluginProtos();
+        var file = protos.roots().get(0).resolve(ProtoFiles.OPTIONS_PROTO);
+        assertEquals(List.of(file), protos.files());
+        assertTrue(Files.readString(file).contains("int64 deadline_ms = " + ProtoFiles.DEADLINE_OPTION + ";"));
+
+        // 同一份内容只解出一次
+        assertEquals(protos, extractor("b", null).pluginProtos());
+        try (var entries = Files.list(dir.resolve("cache/protos"))) {
+            assertEquals(1, entries.count());
+        }
+    }
+}
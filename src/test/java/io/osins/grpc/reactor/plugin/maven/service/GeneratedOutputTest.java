@@ -0,0 +1,85 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratedOutputTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void testSyncRecordsOwners() throws Exception {
+        var staging = Files.createDirectories(dir.resolve("staging/com/acme"));
+        Files.writeString(staging.resolve("UserGrpc.java"), "user");
+        Files.writeString(staging.resolve("Shared.java"), "shared");
+        var target = dir.resolve("java");
+
+        var output = new GeneratedOutput();
+        output.sync(dir.resolve("staging"), target, relative -> relative.endsWith("UserGrpc.java") ? "com/acme/user.proto" : null);
+
+        assertEquals("com/acme/user.proto", output.owner(target.resolve("com/acme/UserGrpc.java")));
+        assertNull(output.owner(target.resolve("com/acme/Shared.java")));
+        assertEquals(Set.of(target.resolve("com/acme/UserGrpc.java").toAbsolutePath().normalize()), output.owners().keySet());
+    }
+
+    @Test
+    void testIncrementalRunDeletesOrphansOfAffectedProtosOnly() throws Exception {
+        var user = Files.writeString(dir.resolve("user.proto"), "user");
+        var role = Files.writeString(dir.resolve("role.proto"), "role");
+        var userGrpc = Files.writeString(dir.resolve("UserGrpc.java"), "user");
+        var userAdminGrpc = Files.writeString(dir.resolve("UserAdminGrpc.java"), "admin");
+        var roleGrpc = Files.writeString(dir.resolve("RoleGrpc.java"), "role");
+
+        var previous = GenerationManifest.snapshot(List.of(user, role), "1", "grpc", Map.of());
+        previous.recordOutputs(List.of(userGrpc, userAdminGrpc, roleGrpc), Map.of(
+                GenerationManifest.key(userGrpc), GenerationManifest.key(user),
+                GenerationManifest.key(userAdminGrpc), GenerationManifest.key(user),
+                GenerationManifest.key(roleGrpc), GenerationManifest.key(role)), null);
+
+        // user.proto 删除了 UserAdmin 服务，只重新生成 user.proto
+        var output = new GeneratedOutput();
+        output.write(userGrpc, "user v2", "user.proto");
+        var stale = previous.outputsOwnedBy(Set.of(GenerationManifest.key(user)));
+        assertEquals(Set.of(GenerationManifest.key(userGrpc), GenerationManifest.key(userAdminGrpc)), stale);
+        assertEquals(1, output.deleteOrphans(stale));
+
+        assertTrue(Files.exists(userGrpc));
+        assertFalse(Files.exists(userAdminGrpc));
+        assertTrue(Files.exists(roleGrpc));
+
+        // 没有重新生成的文件沿用上一次的归属，已删除的文件不再记录
+        var current = GenerationManifest.snapshot(List.of(user, role), "1", "grpc", Map.of());
+        current.recordOutputs(List.of(userGrpc, userAdminGrpc, roleGrpc), Map.of(), previous);
+        assertEquals(Map.of(
+                GenerationManifest.key(userGrpc), GenerationManifest.key(user),
+                GenerationManifest.key(roleGrpc), GenerationManifest.key(role)), current.getOwners());
+    }
+
+    @Test
+    void testResetStartsANewRound() throws Exception {
+        var output = new GeneratedOutput();
+        var file = dir.resolve("UserGrpc.java");
+        output.write(file, "user", "user.proto");
+        output.write(file, "user", "user.proto");
+        assertEquals(1, output.written());
+        assertEquals(1, output.unchanged());
+
+        output.reset();
+        assertTrue(output.produced().isEmpty());
+        assertTrue(output.owners().isEmpty());
+        assertEquals(0, output.written());
+        assertEquals(0, output.unchanged());
+
+        // 上一轮产出的文件不再算作本轮产出
+        assertEquals(1, output.deleteOrphans(List.of(file.toString())));
+        assertFalse(Files.exists(file));
+    }
+}
@@ -0,0 +1,104 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import org.junit.jupiter.api.Test;
+import spoon.Launcher;
+import spoon.support.compiler.VirtualFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObserverToReactorTest {
+    /**
+     * 与 protoc-gen-grpc-java 输出结构相同的最小 *Grpc 类；一元方法的注释中出现其他 MethodType 常量
+     */
+    private static final String GRPC_CLASS = """
+            package demo;
+
+            import io.grpc.MethodDescriptor;
+            import io.grpc.stub.StreamObserver;
+
+            public final class DemoServiceGrpc {
+              public static final class FindRequest {}
+              public static final class CountRequest {}
+              public static final class Item {}
+
+              private static MethodDescriptor<FindRequest, Item> getFindMethod;
+              private static MethodDescriptor<CountRequest, Item> getCountMethod;
+              private static MethodDescriptor<Item, Item> getJoinMethod;
+              private static MethodDescriptor<Item, Item> getChatMethod;
+
+              public static MethodDescriptor<FindRequest, Item> getFindMethod() {
+                // 不是 MethodType.SERVER_STREAMING
+                return getFindMethod = MethodDescriptor.<FindRequest, Item>newBuilder()
+                    .setType(MethodDescriptor.MethodType.UNARY)
+                    .setFullMethodName("demo.DemoService/Find")
+                    .build();
+              }
+
+              public static MethodDescriptor<CountRequest, Item> getCountMethod() {
+                return getCountMethod = MethodDescriptor.<CountRequest, Item>newBuilder()
+                    .setType(io.grpc.MethodDescriptor.MethodType.SERVER_STREAMING)
+                    .setFullMethodName("demo.DemoService/Count")
+                    .build();
+              }
+
+              public static MethodDescriptor<Item, Item> getJoinMethod() {
+                // MethodType.BIDI_STREAMING 只出现在注释中
+                return getJoinMethod = MethodDescriptor.<Item, Item>newBuilder()
+                    .setType(MethodDescriptor.MethodType.CLIENT_STREAMING)
+                    .setFullMethodName("demo.DemoService/Join")
+                    .build();
+              }
+
+              public static MethodDescriptor<Item, Item> getChatMethod() {
+                return getChatMethod = MethodDescriptor.<Item, Item>newBuilder()
+                    .setType(MethodDescriptor.MethodType.BIDI_STREAMING)
+                    .setFullMethodName("demo.DemoService/Chat")
+                    .build();
+              }
+
+              public static final class DemoServiceStub {
+                public void find(FindRequest request, StreamObserver<Item> responseObserver) {
+                }
+
+                public void count(CountRequest request, StreamObserver<Item> responseObserver) {
+                }
+
+                public StreamObserver<Item> join(StreamObserver<Item> responseObserver) {
+                  return null;
+                }
+
+                public StreamObserver<Item> chat(StreamObserver<Item> responseObserver) {
+                  return null;
+                }
+              }
+            }
+            """;
+
+    @Test
+    void testMethodTypeIsReadFromSetType() {
+        var launcher = new Launcher();
+        launcher.addInputResource(new VirtualFile(GRPC_CLASS, "DemoServiceGrpc.java"));
+        launcher.getEnvironment().setNoClasspath(true);
+        launcher.getEnvironment().setComplianceLevel(21);
+        launcher.buildModel();
+
+        var factory = launcher.getFactory();
+        var client = ObserverToReactor.builder(factory, factory.Class().get("demo.DemoServiceGrpc"), "com.example", "").build().getClientClass();
+
+        var find = client.getMethodsByName("find").getFirst();
+        assertEquals("Mono", find.getType().getSimpleName());
+        assertTrue(find.getBody().toString().contains("Observer.mono"), find.toString());
+
+        var count = client.getMethodsByName("count").getFirst();
+        assertEquals("Flux", count.getType().getSimpleName());
+        assertTrue(count.getBody().toString().contains("ReactorClientCalls.serverStreaming("), count.toString());
+
+        var join = client.getMethodsByName("join").getFirst();
+        assertEquals("Mono", join.getType().getSimpleName());
+        assertTrue(join.getBody().toString().contains("ReactorClientCalls.clientStreaming("), join.toString());
+
+        var chat = client.getMethodsByName("chat").getFirst();
+        assertEquals("Flux", chat.getType().getSimpleName());
+        assertTrue(chat.getBody().toString().contains("ReactorClientCalls.bidiStreaming("), chat.toString());
+    }
+}
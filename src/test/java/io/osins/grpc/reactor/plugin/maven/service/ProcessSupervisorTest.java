@@ -0,0 +1,30 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessSupervisorTest {
+    private static final List<String> JAVA_VERSION = List.of(ProcessHandle.current().info().command().orElse("java"), "-version");
+
+    @Test
+    void testResetAllowsRunsAfterCancel() throws Exception {
+        try (var supervisor = new ProcessSupervisor()) {
+            assertEquals(0, supervisor.run(JAVA_VERSION, null, Duration.ofMinutes(1)).exitCode());
+
+            supervisor.cancelAll("fatal error");
+            assertTrue(supervisor.isCancelled());
+            var e = assertThrows(CancellationException.class, () -> supervisor.run(JAVA_VERSION, null, Duration.ofMinutes(1)));
+            assertTrue(e.getMessage().contains("fatal error"), e.getMessage());
+
+            // watch 在失败的生成之后继续使用同一个 supervisor
+            supervisor.reset();
+            assertFalse(supervisor.isCancelled());
+            assertEquals(0, supervisor.run(JAVA_VERSION, null, Duration.ofMinutes(1)).exitCode());
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import com.google.protobuf.*;
+import com.google.protobuf.DescriptorProtos.*;
+import com.squareup.protoparser.DataType;
+import com.squareup.protoparser.EnumElement;
+import com.squareup.protoparser.FieldElement;
+import com.squareup.protoparser.MessageElement;
+import com.squareup.protoparser.OptionElement;
+import com.squareup.protoparser.ProtoFile;
+import com.squareup.protoparser.ProtoParser;
+import com.squareup.protoparser.TypeElement;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoFiles;
+import io.osins.grpc.reactor.plugin.maven.uitls.ProtoPaths;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 测试用的纯 JVM proto 前端：用 protoparser 把源码直接转换成 FileDescriptorProto，不启动 protoc；插件本身的描述符总是来自 protoc。
+ * 覆盖生成代码需要的部分（消息、枚举、map、oneof、服务、java 选项），
+ * 不处理 extensions、默认值和除方法 deadline_ms 以外的自定义选项。import 按 proto_path 解析，与 protoc 编译时一致。
+ */
+@Slf4j
+public class ProtoSourceParser {
+    private static final Map<String, Descriptors.FileDescriptor> WELL_KNOWN = Stream.of(
+                    AnyProto.getDescriptor(), ApiProto.getDescriptor(), DescriptorProtos.getDescriptor(),
+                    DurationProto.getDescriptor(), EmptyProto.getDescriptor(), FieldMaskProto.getDescriptor(),
+                    SourceContextProto.getDescriptor(), StructProto.getDescriptor(), TimestampProto.getDescriptor(),
+                    TypeProto.getDescriptor(), WrappersProto.getDescriptor())
+            .collect(Collectors.toMap(Descriptors.FileDescriptor::getName, d -> d));
+
+    private static final Map<String, FieldDescriptorProto.Type> SCALARS = Map.ofEntries(
+            Map.entry("double", FieldDescriptorProto.Type.TYPE_DOUBLE),
+            Map.entry("float", FieldDescriptorProto.Type.TYPE_FLOAT),
+            Map.entry("int64", FieldDescriptorProto.Type.TYPE_INT64),
+            Map.entry("uint64", FieldDescriptorProto.Type.TYPE_UINT64),
+            Map.entry("int32", FieldDescriptorProto.Type.TYPE_INT32),
+            Map.entry("fixed64", FieldDescriptorProto.Type.TYPE_FIXED64),
+            Map.entry("fixed32", FieldDescriptorProto.Type.TYPE_FIXED32),
+            Map.entry("bool", FieldDescriptorProto.Type.TYPE_BOOL),
+            Map.entry("string", FieldDescriptorProto.Type.TYPE_STRING),
+            Map.entry("bytes", FieldDescriptorProto.Type.TYPE_BYTES),
+            Map.entry("uint32", FieldDescriptorProto.Type.TYPE_UINT32),
+            Map.entry("sfixed32", FieldDescriptorProto.Type.TYPE_SFIXED32),
+            Map.entry("sfixed64", FieldDescriptorProto.Type.TYPE_SFIXED64),
+            Map.entry("sint32", FieldDescriptorProto.Type.TYPE_SINT32),
+            Map.entry("sint64", FieldDescriptorProto.Type.TYPE_SINT64));
+
+    private static final Pattern RPC = Pattern.compile("rpc\\s+(\\w+)\\s*\\(\\s*(stream\\s+)?[\\w.]+\\s*\\)\\s*returns\\s*\\(\\s*(stream\\s+)?[\\w.]+\\s*\\)");
+    private static final Pattern STREAM = Pattern.compile("\\(\\s*stream\\s+");
+
+    /**
+     * 已解析的源文件，流式标记由源码单独识别，protoparser 只看到去掉 stream 关键字后的文本
+     */
+    private record Source(String name, ProtoFile proto, Set<String> clientStreaming, Set<String> serverStreaming) {
+    }
+
+    private final Map<String, Boolean> symbols = new HashMap<>();
+
+    /**
+     * 解析 proto 文件及其 import 闭包，按依赖优先的顺序返回，与 protoc --include_imports 一致
+     */
+    public FileDescriptorSet parse(List<Path> protoFiles) throws IOException {
+        return parse(protoFiles, ProtoPaths.none());
+    }
+
+    public FileDescriptorSet parse(List<Path> protoFiles, ProtoPaths protoPaths) throws IOException {
+        symbols.clear();
+        var sources = new LinkedHashMap<String, Source>();
+        var ordered = new LinkedHashMap<String, FileDescriptorProto>();
+
+        for (var protoFile : protoFiles) {
+            load(protoPaths, protoPaths.root(protoFile), protoPaths.name(protoFile), sources, ordered, new HashSet<>());
+        }
+        return FileDescriptorSet.newBuilder().addAllFile(ordered.values()).build();
+    }
+
+    private void load(ProtoPaths protoPaths, Path root, String name, Map<String, Source> sources, Map<String, FileDescriptorProto> ordered, Set<String> visiting) throws IOException {
+        if (ordered.containsKey(name))
+            return;
+        if (!visiting.add(name))
+            throw new IllegalArgumentException("Import cycle detected at " + name);
+
+        var file = protoPaths.resolve(name, root).orElse(null);
+        if (file == null) {
+            var wellKnown = WELL_KNOWN.get(name);
+            if (wellKnown == null)
+                throw new IOException("Import not found: " + name + " (proto_path " + protoPaths.search(root) + ")");
+
+            for (var dep : wellKnown.getDependencies()) {
+                load(protoPaths, root, dep.getName(), sources, ordered, visiting);
+            }
+            var proto = wellKnown.toProto();
+            register(proto);
+            ordered.put(name, proto);
+            return;
+        }
+
+        var source = read(name, Files.readString(file));
+        sources.put(name, source);
+        for (var dep : source.proto().dependencies()) {
+            load(protoPaths, root, dep, sources, ordered, visiting);
+        }
+        for (var dep : source.proto().publicDependencies()) {
+            load(protoPaths, root, dep, sources, ordered, visiting);
+        }
+
+        var proto = convert(source);
+        register(proto);
+        ordered.put(name, proto);
+        visiting.remove(name);
+    }
+
+    private static Source read(String name, String content) {
+        var clientStreaming = new HashSet<String>();
+        var serverStreaming = new HashSet<String>();
+        var matcher = RPC.matcher(content);
+        while (matcher.find()) {
+            if (matcher.group(2) != null)
+                clientStreaming.add(matcher.group(1));
+            if (matcher.group(3) != null)
+                serverStreaming.add(matcher.group(1));
+        }
+
+        var proto = ProtoParser.parse(name, STREAM.matcher(content).replaceAll("("));
+        return new Source(name, proto, clientStreaming, serverStreaming);
+    }
+
+    private FileDescriptorProto convert(Source source) {
+        var proto = source.proto();
+        var pkg = proto.packageName() == null ? "" : proto.packageName();
+        var builder = FileDescriptorProto.newBuilder().setName(source.name());
+
+        if (!pkg.isEmpty())
+            builder.setPackage(pkg);
+        if (proto.syntax() == ProtoFile.Syntax.PROTO_3)
+            builder.setSyntax("proto3");
+
+        builder.addAllDependency(proto.dependencies());
+        for (var dep : proto.publicDependencies()) {
+            builder.addDependency(dep);
+            builder.addPublicDependency(builder.getDependencyCount() - 1);
+        }
+
+        builder.setOptions(fileOptions(proto.options()));
+
+        // 先登记本文件声明的类型，字段才能引用后面声明的消息
+        proto.typeElements().forEach(t -> declare(pkg, t));
+
+        for (var type : proto.typeElements()) {
+            if (type instanceof MessageElement message)
+                builder.addMessageType(message(pkg, message));
+            else if (type instanceof EnumElement enumElement)
+                builder.addEnumType(enumType(enumElement));
+        }
+
+        for (var service : proto.services()) {
+            var serviceBuilder = ServiceDescriptorProto.newBuilder().setName(service.name());
+            for (var rpc : service.rpcs()) {
+                var method = MethodDescriptorProto.newBuilder()
+                        .setName(rpc.name())
+                        .setInputType("." + resolve(typeName(rpc.requestType()), pkg))
+                        .setOutputType("." + resolve(typeName(rpc.responseType()), pkg));
+                if (source.clientStreaming().contains(rpc.name()))
+                    method.setClientStreaming(true);
+                if (source.serverStreaming().contains(rpc.name()))
+                    method.setServerStreaming(true);
+                methodOptions(rpc.options()).ifPresent(method::setOptions);
+                serviceBuilder.addMethod(method);
+            }
+            builder.addService(serviceBuilder);
+        }
+        return builder.build();
+    }
+
+    private static FileOptions fileOptions(List<OptionElement> options) {
+        var builder = FileOptions.newBuilder();
+        for (var option : options) {
+            var value = String.valueOf(option.value());
+            switch (option.name()) {
+                case "java_package" -> builder.setJavaPackage(value);
+                case "java_outer_classname" -> builder.setJavaOuterClassname(value);
+                case "java_multiple_files" -> builder.setJavaMultipleFiles(Boolean.parseBoolean(value));
+                default -> log.debug("Ignoring file option {}", option.name());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 只转换 deadline_ms，与 protoc 的输出一样放在未知字段中
+     */
+    private static Optional<MethodOptions> methodOptions(List<OptionElement> options) {
+        for (var option : options) {
+            if (!option.name().equals("deadline_ms") && !option.name().endsWith(".deadline_ms"))
+                continue;
+
+            var field = UnknownFieldSet.Field.newBuilder().addVarint(Long.parseLong(String.valueOf(option.value()))).build();
+            return Optional.of(MethodOptions.newBuilder()
+                    .setUnknownFields(UnknownFieldSet.newBuilder().addField(ProtoFiles.DEADLINE_OPTION, field).build())
+                    .build());
+        }
+        return Optional.empty();
+    }
+
+    private void declare(String scope, TypeElement type) {
+        var name = scope.isEmpty() ? type.name() : scope + "." + type.name();
+        symbols.put(name, type instanceof EnumElement);
+        type.nestedElements().forEach(t -> declare(name, t));
+    }
+
+    private DescriptorProto message(String scope, MessageElement message) {
+        var name = scope.isEmpty() ? message.name() : scope + "." + message.name();
+        var builder = DescriptorProto.newBuilder().setName(message.name());
+
+        for (var field : message.fields()) {
+            addField(builder, name, field, -1);
+        }
+        for (var oneOf : message.oneOfs()) {
+            builder.addOneofDecl(OneofDescriptorProto.newBuilder().setName(oneOf.name()));
+            for (var field : oneOf.fields()) {
+                addField(builder, name, field, builder.getOneofDeclCount() - 1);
+            }
+        }
+        for (var nested : message.nestedElements()) {
+            if (nested instanceof MessageElement nestedMessage)
+                builder.addNestedType(message(name, nestedMessage));
+            else if (nested instanceof EnumElement nestedEnum)
+                builder.addEnumType(enumType(nestedEnum));
+        }
+        return builder.build();
+    }
+
+    private void addField(DescriptorProto.Builder message, String scope, FieldElement field, int oneofIndex) {
+        var builder = FieldDescriptorProto.newBuilder()
+                .setName(field.name())
+                .setNumber(field.tag())
+                .setJsonName(jsonName(field.name()))
+                .setLabel(field.label() == FieldElement.Label.REPEATED ? FieldDescriptorProto.Label.LABEL_REPEATED
+                        : field.label() == FieldElement.Label.REQUIRED ? FieldDescriptorProto.Label.LABEL_REQUIRED
+                        : FieldDescriptorProto.Label.LABEL_OPTIONAL);
+
+        if (oneofIndex >= 0)
+            builder.setOneofIndex(oneofIndex);
+
+        var type = field.type();
+        if (type instanceof DataType.MapType map) {
+            // map<K, V> 按 protoc 的方式展开为嵌套的 XxxEntry 消息
+            var entryName = mapEntryName(field.name());
+            var entry = DescriptorProto.newBuilder()
+                    .setName(entryName)
+                    .setOptions(MessageOptions.newBuilder().setMapEntry(true));
+            entry.addField(typed(FieldDescriptorProto.newBuilder().setName("key").setNumber(1).setJsonName("key")
+                    .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL), map.keyType(), scope));
+            entry.addField(typed(FieldDescriptorProto.newBuilder().setName("value").setNumber(2).setJsonName("value")
+                    .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL), map.valueType(), scope));
+            message.addNestedType(entry);
+
+            builder.setLabel(FieldDescriptorProto.Label.LABEL_REPEATED)
+                    .setType(FieldDescriptorProto.Type.TYPE_MESSAGE)
+                    .setTypeName("." + scope + "." + entryName);
+        } else {
+            typed(builder, type, scope);
+        }
+        message.addField(builder);
+    }
+
+    private FieldDescriptorProto.Builder typed(FieldDescriptorProto.Builder builder, DataType type, String scope) {
+        if (!(type instanceof DataType.NamedType)) {
+            var scalar = SCALARS.get(type.toString().toLowerCase(Locale.ROOT));
+            if (scalar == null)
+                throw new IllegalArgumentException("Unsupported field type " + type + " in " + scope);
+            return builder.setType(scalar);
+        }
+
+        var resolved = resolve(typeName(type), scope);
+        return builder
+                .setType(symbols.get(resolved) ? FieldDescriptorProto.Type.TYPE_ENUM : FieldDescriptorProto.Type.TYPE_MESSAGE)
+                .setTypeName("." + resolved);
+    }
+
+    private static String typeName(DataType type) {
+        return ((DataType.NamedType) type).name();
+    }
+
+    private static EnumDescriptorProto enumType(EnumElement enumElement) {
+        var builder = EnumDescriptorProto.newBuilder().setName(enumElement.name());
+        enumElement.constants().forEach(c -> builder.addValue(EnumValueDescriptorProto.newBuilder()
+                .setName(c.name())
+                .setNumber(c.tag())));
+        return builder.build();
+    }
+
+    /**
+     * 按 protobuf 的作用域规则从内向外查找类型
+     */
+    private String resolve(String name, String scope) {
+        if (name.startsWith(".")) {
+            if (symbols.containsKey(name.substring(1)))
+                return name.substring(1);
+            throw new IllegalArgumentException("Unresolved type " + name);
+        }
+
+        var current = scope;
+        while (true) {
+            var candidate = current.isEmpty() ? name : current + "." + name;
+            if (symbols.containsKey(candidate))
+                return candidate;
+            if (current.isEmpty())
+                throw new IllegalArgumentException("Unresolved type " + name + " in scope " + scope);
+
+            var dot = current.lastIndexOf('.');
+            current = dot < 0 ? "" : current.substring(0, dot);
+        }
+    }
+
+    private void register(FileDescriptorProto file) {
+        var pkg = file.getPackage();
+        file.getMessageTypeList().forEach(m -> register(pkg, m));
+        file.getEnumTypeList().forEach(e -> symbols.put(pkg.isEmpty() ? e.getName() : pkg + "." + e.getName(), true));
+    }
+
+    private void register(String scope, DescriptorProto message) {
+        var name = scope.isEmpty() ? message.getName() : scope + "." + message.getName();
+        symbols.put(name, false);
+        message.getNestedTypeList().forEach(m -> register(name, m));
+        message.getEnumTypeList().forEach(e -> symbols.put(name + "." + e.getName(), true));
+    }
+
+    private static String jsonName(String name) {
+        var result = new StringBuilder();
+        var upper = false;
+        for (var c : name.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                result.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return result.toString();
+    }
+
+    private static String mapEntryName(String fieldName) {
+        var json = jsonName(fieldName);
+        return Character.toUpperCase(json.charAt(0)) + json.substring(1) + "Entry";
+    }
+}
@@ -0,0 +1,110 @@
+package io.osins.grpc.reactor.plugin.maven.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProtocCompilerServiceTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void testDiagnostics() {
+        var diagnostics = ProtocCompilerService.diagnostics("""
+                com/acme/user.proto:12:5: "Foo" is not defined.
+                role.proto: Import "com/acme/user.proto" was not found or had errors.
+                --grpc-java_out: protoc-gen-grpc-java: Plugin failed with status code 1.
+                """);
+
+        assertEquals(List.of(
+                new ProtocCompilerService.Diagnostic("com/acme/user.proto", 12, 5, "\"Foo\" is not defined."),
+                new ProtocCompilerService.Diagnostic("role.proto", 0, 0, "Import \"com/acme/user.proto\" was not found or had errors.")
+        ), diagnostics);
+        assertTrue(ProtocCompilerService.diagnostics(null).isEmpty());
+    }
+
+    /**
+     * 用脚本代替 protoc：含 bad 的文件名报错，其余成功
+     */
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void testSingleFileBatchFailureIsIsolated() throws Exception {
+        var protoc = dir.resolve("protoc");
+        Files.writeString(protoc, """
+                #!/bin/sh
+                for arg in "$@"; do
+                  case "$arg" in
+                    *bad*.proto) echo "$arg:3:7: Expected ';'." >&2; exit 1 ;;
+                  esac
+                done
+                exit 0
+                """);
+        Files.setPosixFilePermissions(protoc, PosixFilePermissions.fromString("rwxr-xr-x"));
+
+        try (var supervisor = new ProcessSupervisor(new BuildMetrics())) {
+            var compiler = new ProtocCompilerService(supervisor);
+            var request = ProtocCompilerService.ProtocCompileRequest.builder()
+                    .protocExecutable(protoc.toString())
+                    .protocGenGrpcJavaPath("protoc-gen-grpc-java")
+                    .protoDir(dir)
+                    .protoFileNames(List.of("bad.proto"))
+                    .build();
+
+            var failed = compiler.compileBatch(request);
+            assertEquals(List.of(new ProtocCompilerService.Diagnostic("bad.proto", 3, 7, "Expected ';'.")), failed.get("bad.proto"));
+            assertFalse(supervisor.isCancelled());
+
+            // 多文件批次同样只标记出错的文件
+            failed = compiler.compileBatch(request.toBuilder().protoFileNames(List.of("good.proto", "bad.proto")).build());
+            assertEquals(List.of("bad.proto"), List.copyOf(failed.keySet()));
+
+            // 工具链错误仍然抛出
+            var missing = request.toBuilder().protocExecutable(dir.resolve("missing/protoc").toString()).build();
+            assertThrows(IllegalStateException.class, () -> compiler.compileBatch(missing));
+        }
+    }
+
+    /**
+     * 批次中只有一个文件出错时按对半拆分探测，不为每个文件启动一次 protoc
+     */
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void testFailingFileIsLocatedByBisection() throws Exception {
+        var protoc = dir.resolve("protoc");
+        var calls = dir.resolve("calls.log");
+        Files.writeString(protoc, """
+                #!/bin/sh
+                echo "$*" >> "%s"
+                for arg in "$@"; do
+                  case "$arg" in
+                    *bad*.proto) echo "$arg:1:1: Syntax error." >&2; exit 1 ;;
+                  esac
+                done
+                exit 0
+                """.formatted(calls));
+        Files.setPosixFilePermissions(protoc, PosixFilePermissions.fromString("rwxr-xr-x"));
+
+        var files = IntStream.range(0, 64).mapToObj(i -> i == 37 ? "bad" + i + ".proto" : "good" + i + ".proto").toList();
+        try (var supervisor = new ProcessSupervisor(new BuildMetrics())) {
+            var failed = new ProtocCompilerService(supervisor).compileBatch(ProtocCompilerService.ProtocCompileRequest.builder()
+                    .protocExecutable(protoc.toString())
+                    .protocGenGrpcJavaPath("protoc-gen-grpc-java")
+                    .protoDir(dir)
+                    .protoFileNames(files)
+                    .build());
+            assertEquals(List.of("bad37.proto"), List.copyOf(failed.keySet()));
+        }
+
+        // 一次批量、2·log2(64) 次探测、一次重新编译
+        assertEquals(1 + 2 * 6 + 1, Files.readAllLines(calls).size());
+    }
+}
@@ -0,0 +1,41 @@
+package io.osins.grpc.reactor.plugin.maven.utils;
+
+import com.google.inject.Guice;
+import io.osins.grpc.reactor.plugin.maven.module.ReactiveCodeModule;
+import io.osins.grpc.reactor.plugin.maven.service.DescriptorCodeService;
+import org.apache.maven.project.MavenProject;
+
+import javax.tools.ToolProvider;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 生成 com.example.ReactorClientCalls 与 com.example.ReactorStubs 并用当前测试类路径编译，供运行时测试加载
+ */
+public final class GeneratedRuntime {
+    private GeneratedRuntime() {
+    }
+
+    public static ClassLoader compile(Path directory) throws Exception {
+        var sources = directory.resolve("sources");
+        var classes = Files.createDirectories(directory.resolve("classes"));
+        var injector = Guice.createInjector(new ReactiveCodeModule(mock(MavenProject.class), "/protobuf", "test-grpc", "com.example", "authGrpcChannel", sources.toString(), ""));
+        injector.getInstance(DescriptorCodeService.class).generateClientCalls();
+
+        var arguments = new ArrayList<>(List.of("-d", classes.toString(), "-classpath", System.getProperty("java.class.path")));
+        try (Stream<Path> paths = Files.walk(sources)) {
+            paths.filter(p -> p.toString().endsWith(".java")).map(Path::toString).forEach(arguments::add);
+        }
+        if (ToolProvider.getSystemJavaCompiler().run(null, null, null, arguments.toArray(String[]::new)) != 0)
+            throw new IllegalStateException("Generated runtime sources do not compile: " + sources);
+
+        return new URLClassLoader(new URL[]{classes.toUri().toURL()}, GeneratedRuntime.class.getClassLoader());
+    }
+}